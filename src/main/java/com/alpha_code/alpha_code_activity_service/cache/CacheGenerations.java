@@ -0,0 +1,131 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Invalidation theo "thế hệ" cho các cache danh sách, thay cho {@code @CacheEvict(allEntries = true)}.
+ * <p>
+ * Key của một trang danh sách chứa số thế hệ của phạm vi nó thuộc về, vd.
+ * {@code @cacheGenerations.version('activities_list', 'account', #accountId, 'model', #modelId)}:
+ * lọc theo account → phạm vi {@code account:<id>}; chỉ lọc theo model → {@code model:<id>};
+ * không lọc → {@code all}. Khi ghi một bản ghi (account A, model M), {@link #bump} tăng thế hệ của
+ * {@code all}, {@code account:A} và {@code model:M}; các trang của account/model khác giữ nguyên.
+ * Entry của thế hệ cũ không bao giờ được đọc lại và tự hết hạn theo TTL của cache.
+ * <p>
+ * Số thế hệ lưu trong Redis (INCR) và được nhớ trong process một thời gian ngắn;
+ * pod tăng thế hệ báo cho pod khác qua {@link CacheInvalidationBus}.
+ */
+@Component("cacheGenerations")
+@Slf4j
+public class CacheGenerations implements LocalInvalidationTarget {
+
+    private static final String CHANNEL_NAME = "cache_generations";
+    private static final String KEY_PREFIX = "cache_gen:";
+    private static final String ALL = "all";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final Duration ttl;
+    private final Cache<String, Long> local;
+
+    public CacheGenerations(StringRedisTemplate redisTemplate,
+                            CacheInvalidationBus invalidationBus,
+                            @Value("${cache.generations.ttl:P1D}") Duration ttl,
+                            @Value("${cache.generations.local-ttl:PT5S}") Duration localTtl) {
+        this.redisTemplate = redisTemplate;
+        this.invalidationBus = invalidationBus;
+        this.ttl = ttl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(localTtl)
+                .build();
+        invalidationBus.register(CHANNEL_NAME, this);
+    }
+
+    /**
+     * Số thế hệ (dạng {@code g<n>}) của phạm vi hẹp nhất khớp với bộ lọc, dùng làm thành phần của key cache.
+     *
+     * @param dimensions các cặp tên, giá trị theo thứ tự ưu tiên; giá trị null = không lọc theo chiều đó
+     */
+    public String version(String cache, Object... dimensions) {
+        String scope = ALL;
+        for (int i = 0; i + 1 < dimensions.length; i += 2) {
+            if (dimensions[i + 1] != null) {
+                scope = dimensions[i] + ":" + dimensions[i + 1];
+                break;
+            }
+        }
+        String key = KEY_PREFIX + cache + ":" + scope;
+        return "g" + local.get(key, this::read);
+    }
+
+    /**
+     * Làm mới mọi danh sách có thể chứa bản ghi mang các giá trị này. Trong transaction thì chạy sau
+     * khi commit, để request khác không kịp cache lại dữ liệu cũ dưới thế hệ mới.
+     */
+    public void bump(String cache, Object... dimensions) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(KEY_PREFIX + cache + ":" + ALL);
+        for (int i = 0; i + 1 < dimensions.length; i += 2) {
+            if (dimensions[i + 1] != null) {
+                keys.add(KEY_PREFIX + cache + ":" + dimensions[i] + ":" + dimensions[i + 1]);
+            }
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(keys);
+                }
+            });
+        } else {
+            increment(keys);
+        }
+    }
+
+    private void increment(Set<String> keys) {
+        for (String key : keys) {
+            try {
+                Long generation = redisTemplate.opsForValue().increment(key);
+                // TTL dài hơn mọi cache danh sách: key hết hạn thì thế hệ quay về 0 mà không gặp lại entry cũ
+                redisTemplate.expire(key, ttl);
+                if (generation != null) {
+                    local.put(key, generation);
+                }
+            } catch (RuntimeException e) {
+                // Dữ liệu đã commit; danh sách cũ chỉ còn được đọc đến khi entry hết TTL
+                log.warn("Bump cache generation {} failed: {}", key, e.getMessage());
+                local.invalidate(key);
+                continue;
+            }
+            invalidationBus.publishEvict(CHANNEL_NAME, key);
+        }
+    }
+
+    private Long read(String key) {
+        String value = redisTemplate.opsForValue().get(key);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    @Override
+    public void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        local.invalidateAll();
+    }
+}
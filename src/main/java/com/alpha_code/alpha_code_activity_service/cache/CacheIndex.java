@@ -0,0 +1,111 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Index phụ (vd. code → id, name → id) cho cache catalog, để bản ghi chỉ được cache một lần theo id.
+ * <p>
+ * Cache {@code <cache>_index} chỉ giữ id (dạng chuỗi) dưới key có kiểu, vd. {@code code:wave_hand};
+ * giá trị thật nằm trong cache chính dưới key id, cùng entry với {@code @Cacheable(key = "#id")}.
+ * Nhờ vậy cập nhật một bản ghi chỉ cần {@code @CachePut} entry theo id và {@link #evict} vài key index
+ * của nó, không phải {@code allEntries}. Key index được chuẩn hoá chữ thường vì truy vấn theo code/name
+ * là {@code IgnoreCase}.
+ */
+@Component
+public class CacheIndex {
+
+    static final String INDEX_SUFFIX = "_index";
+
+    private final CacheManager cacheManager;
+
+    public CacheIndex(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Đọc bản ghi qua index. Miss index thì chạy {@code lookup} (truy vấn theo code/name) và ghi luôn kết quả
+     * vào cache chính theo id; hit index thì đọc cache chính theo id, miss thì {@code loadById}.
+     * Lỗi của loader (vd. {@code ResourceNotFoundException}) được ném lại nguyên bản như {@code @Cacheable(sync = true)}.
+     */
+    public <T> T get(String cacheName, String field, String value,
+                     Supplier<T> lookup, Function<T, UUID> idOf, Function<UUID, T> loadById) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache index = cacheManager.getCache(cacheName + INDEX_SUFFIX);
+        if (cache == null || index == null) {
+            return lookup.get();
+        }
+
+        AtomicReference<T> loaded = new AtomicReference<>();
+        try {
+            String id = index.get(indexKey(field, value), () -> {
+                T found = lookup.get();
+                UUID foundId = idOf.apply(found);
+                cache.put(foundId, found);
+                loaded.set(found);
+                return foundId.toString();
+            });
+            if (loaded.get() != null) {
+                return loaded.get();
+            }
+            UUID uuid = UUID.fromString(id);
+            return cache.get(uuid, () -> loadById.apply(uuid));
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Bỏ các key index của một bản ghi. Trong transaction thì chạy sau khi commit, để request khác
+     * không kịp cache lại ánh xạ cũ.
+     *
+     * @param fields các cặp tên, giá trị; giá trị null được bỏ qua
+     */
+    public void evict(String cacheName, String... fields) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            if (fields[i + 1] != null) {
+                keys.add(indexKey(fields[i], fields[i + 1]));
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(cacheName, keys);
+                }
+            });
+        } else {
+            evictNow(cacheName, keys);
+        }
+    }
+
+    private void evictNow(String cacheName, Set<String> keys) {
+        Cache index = cacheManager.getCache(cacheName + INDEX_SUFFIX);
+        if (index != null) {
+            keys.forEach(index::evict);
+        }
+    }
+
+    static String indexKey(String field, String value) {
+        return field + ":" + value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,76 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Phát và nhận invalidation L1 giữa các pod qua Redis pub/sub.
+ * <p>
+ * Message dạng text: {@code origin \n E \n cache \n key} (evict) hoặc {@code origin \n C \n cache} (clear).
+ * Pod gửi bỏ qua message của chính nó vì đã cập nhật L1 lúc ghi.
+ */
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<String, LocalInvalidationTarget> caches = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    void register(String name, LocalInvalidationTarget target) {
+        caches.put(name, target);
+    }
+
+    void publishEvict(String cacheName, String key) {
+        publish(origin + "\n" + EVICT + "\n" + cacheName + "\n" + key);
+    }
+
+    void publishClear(String cacheName) {
+        publish(origin + "\n" + CLEAR + "\n" + cacheName);
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (RuntimeException e) {
+            // L2 đã cập nhật; pod khác chỉ đọc L1 cũ đến khi entry hết TTL
+            log.warn("Publish cache invalidation failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 4);
+        if (parts.length < 3 || origin.equals(parts[0])) {
+            return;
+        }
+        LocalInvalidationTarget cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        } else if (EVICT.equals(parts[1]) && parts.length == 4) {
+            cache.evictLocal(parts[3]);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Khoá "đang load" ngắn hạn trong Redis để chỉ một pod chạy loader cho một key cache bị miss.
+ * <p>
+ * Pod giữ khoá load rồi ghi L2; pod khác chờ giá trị xuất hiện trong L2 tối đa {@code waitTimeout}.
+ * Hết thời gian chờ, hoặc khoá biến mất mà L2 vẫn trống (pod giữ khoá lỗi / giá trị null không được cache),
+ * pod đang chờ tự load. Khoá có TTL nên pod chết giữa chừng không làm kẹt key.
+ */
+@Slf4j
+public class CacheLoadLock {
+
+    private static final String KEY_PREFIX = "cache_lock:";
+    // Chỉ xoá khoá nếu vẫn là của mình (khoá có thể đã hết hạn và bị pod khác lấy)
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+
+    public CacheLoadLock(StringRedisTemplate redisTemplate, Duration ttl, Duration waitTimeout, Duration pollInterval) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * @return token để {@link #release}, hoặc null nếu pod khác đang load key này
+     */
+    String tryAcquire(String cacheName, String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey(cacheName, key), token, ttl);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (RuntimeException e) {
+            // Redis lỗi: load như không có khoá, tệ nhất là mỗi pod load một lần
+            log.warn("Acquire cache load lock {}:{} failed: {}", cacheName, key, e.getMessage());
+            return token;
+        }
+    }
+
+    void release(String cacheName, String key, String token) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(lockKey(cacheName, key)), token);
+        } catch (RuntimeException e) {
+            log.warn("Release cache load lock {}:{} failed: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    /**
+     * Chờ pod giữ khoá ghi giá trị vào L2.
+     *
+     * @return giá trị đọc được, hoặc null nếu hết thời gian chờ / khoá đã được trả mà L2 vẫn trống
+     */
+    Cache.ValueWrapper await(String cacheName, String key, Supplier<Cache.ValueWrapper> lookup) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        String lockKey = lockKey(cacheName, key);
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            Cache.ValueWrapper value = lookup.get();
+            if (value != null) {
+                return value;
+            }
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(lockKey))) {
+                return lookup.get();
+            }
+        }
+        log.debug("Timed out waiting for cache load {}:{}", cacheName, key);
+        return null;
+    }
+
+    private static String lockKey(String cacheName, String key) {
+        return KEY_PREFIX + cacheName + ":" + key;
+    }
+}
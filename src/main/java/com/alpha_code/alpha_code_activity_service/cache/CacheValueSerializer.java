@@ -0,0 +1,171 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Serializer Jackson cho giá trị cache trong Redis, thay cho JDK serialization. Định dạng theo
+ * ObjectMapper truyền vào: JSON, hoặc Smile (JSON nhị phân: tên field và chuỗi lặp lại được ghi
+ * dạng tham chiếu ngắn, UUID ghi thành 16 byte).
+ * <p>
+ * Kiểu runtime được ghi kèm ({@code @class}) cho mọi kiểu không final nên đọc lại được
+ * {@code PagedResult<ActionDto>}, {@code List<DanceDto>}... mà không cần khai báo kiểu theo từng cache.
+ * Một số điểm khác với ObjectMapper của API:
+ * <ul>
+ *     <li>Bỏ qua {@code JsonProperty.Access} để các field READ_ONLY (id, createdDate...) vẫn được đọc lại.</li>
+ *     <li>Collection/Map chỉ đọc của JDK ({@code List.of}, {@code Collections.unmodifiableList}...) được ghi
+ *     thành kiểu tạo được (ArrayList, LinkedHashSet, LinkedHashMap).</li>
+ *     <li>Tên class trong package của service được rút gọn thành {@code ~.dto.ActionDto}.</li>
+ *     <li>{@code JsonNode} (vd. {@code ActivityDto.data}) được ghi nguyên dạng JSON, không kèm kiểu.</li>
+ * </ul>
+ * Chỉ các class thuộc package của service và {@code java.*} được phép xuất hiện trong {@code @class}.
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    private static final String APP_PACKAGE = "com.alpha_code.alpha_code_activity_service.";
+    private static final String SHORT_PACKAGE = "~.";
+
+    private final ObjectMapper mapper;
+
+    /**
+     * @param objectMapper mapper gốc (module, định dạng ngày...); được copy rồi cấu hình thêm, không bị sửa
+     */
+    public CacheValueSerializer(ObjectMapper objectMapper) {
+        PolymorphicTypeValidator validator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType(APP_PACKAGE)
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.time.")
+                .allowIfSubType("java.math.")
+                .build();
+
+        this.mapper = objectMapper.copy()
+                .setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+                    @Override
+                    public JsonProperty.Access findPropertyAccess(Annotated annotated) {
+                        return null;
+                    }
+                })
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
+                .setDefaultTyping(new CacheTypeResolverBuilder(validator)
+                        .init(JsonTypeInfo.Id.CLASS, null)
+                        .inclusion(JsonTypeInfo.As.PROPERTY)
+                        .typeProperty("@class"));
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        try {
+            // NullValue chỉ xuất hiện khi cache cho phép lưu null
+            if (value == null || value instanceof NullValue) {
+                return mapper.writeValueAsBytes(null);
+            }
+            // Ghi theo kiểu gốc Object: lớp final như List.of(...) cũng được kèm kiểu, nếu không sẽ không đọc lại được
+            return mapper.writerFor(Object.class).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not serialize cache value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            Object value = mapper.readValue(bytes, Object.class);
+            return value != null ? value : NullValue.INSTANCE;
+        } catch (IOException e) {
+            throw new SerializationException("Could not deserialize cache value: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class CacheTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+
+        CacheTypeResolverBuilder(PolymorphicTypeValidator validator) {
+            super(ObjectMapper.DefaultTyping.NON_FINAL, validator);
+        }
+
+        @Override
+        protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType,
+                                            PolymorphicTypeValidator subtypeValidator,
+                                            Collection<NamedType> subtypes, boolean forSer, boolean forDeser) {
+            return new CacheTypeIdResolver(baseType, config.getTypeFactory(), subtypeValidator);
+        }
+    }
+
+    private static final class CacheTypeIdResolver extends ClassNameIdResolver {
+
+        CacheTypeIdResolver(JavaType baseType, TypeFactory typeFactory, PolymorphicTypeValidator validator) {
+            super(baseType, typeFactory, validator);
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            return idFromValueAndType(value, value.getClass());
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> type) {
+            String id = super.idFromValueAndType(value, constructibleType(value, type));
+            return id.startsWith(APP_PACKAGE) ? SHORT_PACKAGE + id.substring(APP_PACKAGE.length()) : id;
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+            return super.typeFromId(context, id.startsWith(SHORT_PACKAGE)
+                    ? APP_PACKAGE + id.substring(SHORT_PACKAGE.length())
+                    : id);
+        }
+
+        private static Class<?> constructibleType(Object value, Class<?> type) {
+            if (type == ArrayList.class || type == LinkedList.class
+                    || type == HashSet.class || type == LinkedHashSet.class || type == TreeSet.class
+                    || type == HashMap.class || type == LinkedHashMap.class || type == TreeMap.class
+                    || value instanceof EnumSet || value instanceof EnumMap) {
+                return type;
+            }
+            if (value instanceof SortedSet) return TreeSet.class;
+            if (value instanceof Set) return LinkedHashSet.class;
+            if (value instanceof List || value instanceof Collection) return ArrayList.class;
+            if (value instanceof SortedMap) return TreeMap.class;
+            if (value instanceof Map) return LinkedHashMap.class;
+            return type;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import com.alpha_code.alpha_code_activity_service.repository.ActionRepository;
+import com.alpha_code.alpha_code_activity_service.repository.ActivityRepository;
+import com.alpha_code.alpha_code_activity_service.repository.DanceRepository;
+import com.alpha_code.alpha_code_activity_service.repository.ExpressionRepository;
+import com.alpha_code.alpha_code_activity_service.repository.ExtendedActionRepository;
+import com.alpha_code.alpha_code_activity_service.repository.SkillRepository;
+import com.alpha_code.alpha_code_activity_service.service.ActionService;
+import com.alpha_code.alpha_code_activity_service.service.ActivityService;
+import com.alpha_code.alpha_code_activity_service.service.DanceService;
+import com.alpha_code.alpha_code_activity_service.service.ExpressionService;
+import com.alpha_code.alpha_code_activity_service.service.ExtendedActionService;
+import com.alpha_code.alpha_code_activity_service.service.SkillService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Nạp trước cache catalog theo từng robot model khi pod khởi động, để lượt request đầu tiên của robot
+ * sau deploy không phải đi thẳng xuống DB + gRPC.
+ * <p>
+ * Chạy như {@link ApplicationRunner}: Spring Boot chỉ chuyển readiness sang {@code ACCEPTING_TRAFFIC} sau khi
+ * mọi runner xong, nên pod chưa nhận traffic cho đến khi warm-up xong hoặc hết {@code cache.warm-up.budget}.
+ * Hết thời gian thì các tác vụ còn lại tiếp tục chạy ở nền. Warm-up gọi qua service (proxy {@code @Cacheable})
+ * với đúng tham số mặc định của API robot, nên key cache trùng với key của request thật; pod khởi động sau
+ * phần lớn chỉ chép từ L2 lên L1.
+ */
+@Component
+@Slf4j
+public class CatalogCacheWarmer implements ApplicationRunner {
+
+    private final ActionRepository actionRepository;
+    private final DanceRepository danceRepository;
+    private final ExpressionRepository expressionRepository;
+    private final SkillRepository skillRepository;
+    private final ExtendedActionRepository extendedActionRepository;
+    private final ActivityRepository activityRepository;
+    private final ActionService actionService;
+    private final DanceService danceService;
+    private final ExpressionService expressionService;
+    private final SkillService skillService;
+    private final ExtendedActionService extendedActionService;
+    private final ActivityService activityService;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final Duration budget;
+    private final int threads;
+    private final int pageSize;
+
+    public CatalogCacheWarmer(ActionRepository actionRepository,
+                              DanceRepository danceRepository,
+                              ExpressionRepository expressionRepository,
+                              SkillRepository skillRepository,
+                              ExtendedActionRepository extendedActionRepository,
+                              ActivityRepository activityRepository,
+                              ActionService actionService,
+                              DanceService danceService,
+                              ExpressionService expressionService,
+                              SkillService skillService,
+                              ExtendedActionService extendedActionService,
+                              ActivityService activityService,
+                              MeterRegistry meterRegistry,
+                              @Value("${cache.warm-up.enabled:true}") boolean enabled,
+                              @Value("${cache.warm-up.budget:PT30S}") Duration budget,
+                              @Value("${cache.warm-up.threads:4}") int threads,
+                              @Value("${cache.warm-up.page-size:10}") int pageSize) {
+        this.actionRepository = actionRepository;
+        this.danceRepository = danceRepository;
+        this.expressionRepository = expressionRepository;
+        this.skillRepository = skillRepository;
+        this.extendedActionRepository = extendedActionRepository;
+        this.activityRepository = activityRepository;
+        this.actionService = actionService;
+        this.danceService = danceService;
+        this.expressionService = expressionService;
+        this.skillService = skillService;
+        this.extendedActionService = extendedActionService;
+        this.activityService = activityService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.budget = budget;
+        this.threads = threads;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warmUp();
+        }
+    }
+
+    /**
+     * @return true nếu mọi tác vụ xong trong thời gian cho phép
+     */
+    boolean warmUp() {
+        long start = System.nanoTime();
+        List<Runnable> tasks = new ArrayList<>();
+        // Trang đầu với page size mặc định của các API /robot-model
+        perModel(tasks, "actions", actionRepository::findActiveRobotModelIds,
+                model -> actionService.getActionByRobotModelId(model, 1, pageSize));
+        perModel(tasks, "dances", danceRepository::findActiveRobotModelIds, danceService::getAllByRobotModelId);
+        perModel(tasks, "expressions", expressionRepository::findActiveRobotModelIds, expressionService::getByRobotModelId);
+        perModel(tasks, "skills", skillRepository::findActiveRobotModelIds,
+                model -> skillService.getSkillByRobotModelId(model, 1, pageSize));
+        perModel(tasks, "extended_actions", extendedActionRepository::findActiveRobotModelIds,
+                model -> extendedActionService.getExtendedActionByRobotModelId(model, 1, pageSize));
+        try {
+            for (ActivityRepository.TypeAndRobotModel pair : activityRepository.findActiveTypesAndRobotModels()) {
+                tasks.add(() -> activityService.getByType(pair.getType(), pair.getRobotModelId()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cache warm-up: cannot list activity types: {}", e.getMessage());
+        }
+
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cache-warm-up-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Runnable task : tasks) {
+            pool.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Một model lỗi không chặn phần còn lại; request thật sẽ load như bình thường
+                    failed.incrementAndGet();
+                    log.debug("Cache warm-up task failed: {}", e.getMessage());
+                }
+            });
+        }
+        pool.shutdown();
+
+        boolean completed;
+        try {
+            completed = pool.awaitTermination(budget.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completed = false;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        meterRegistry.timer("cache.warmup", "completed", String.valueOf(completed)).record(elapsed, TimeUnit.NANOSECONDS);
+        if (completed) {
+            log.info("Cache warm-up finished: tasks={}, failed={}, took={}ms",
+                    tasks.size(), failed.get(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } else {
+            log.warn("Cache warm-up exceeded budget {}: tasks={}, failed so far={}; remaining tasks continue in background",
+                    budget, tasks.size(), failed.get());
+        }
+        return completed;
+    }
+
+    private void perModel(List<Runnable> tasks, String catalog, Supplier<List<UUID>> models, Consumer<UUID> load) {
+        try {
+            for (UUID model : models.get()) {
+                if (model != null) {
+                    tasks.add(() -> load.accept(model));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cache warm-up: cannot list robot models for {}: {}", catalog, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Cache hai tầng: L1 Caffeine trong process (nhỏ, TTL ngắn) đứng trước L2 Redis dùng chung.
+ * <p>
+ * Đọc: L1 → L2, giá trị lấy từ L2 được chép lên L1. Ghi/xoá: cập nhật L2 trước rồi L1, sau đó phát
+ * message invalidation để các pod khác bỏ entry L1 tương ứng. Message bị mất thì entry L1 cũ
+ * tự hết hạn theo TTL của L1.
+ * <p>
+ * Key L1 là dạng chuỗi của key (giống cách {@code RedisCache} dựng key), nên message invalidation
+ * chỉ cần mang chuỗi đó. Object trong L1 được dùng chung giữa các request nên không được sửa
+ * giá trị lấy ra từ cache.
+ * <p>
+ * {@link #get(Object, Callable)} ({@code @Cacheable(sync = true)}) chống dồn tải khi miss: trong một
+ * process các request cùng key dùng chung một lần load; giữa các pod, {@link CacheLoadLock} (nếu có)
+ * để một pod load còn pod khác chờ giá trị trong L2.
+ * <p>
+ * Khi có {@link RefreshAhead}, giá trị được lưu dạng {@link RefreshableEntry}; entry quá soft TTL đọc qua
+ * {@link #get(Object, Callable)} vẫn được trả ngay và được load lại ở nền bằng chính loader của request đó.
+ */
+@Slf4j
+public class LayeredCache implements Cache, LocalInvalidationTarget {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final Cache remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheLoadLock loadLock;
+    private final RefreshAhead refreshAhead;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> refreshing = new ConcurrentHashMap<>();
+
+    /**
+     * @param loadLock     null = chỉ gộp các lần load trong process
+     * @param refreshAhead null = tắt refresh-ahead, entry chỉ hết hạn theo TTL
+     */
+    public LayeredCache(String name,
+                        com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                        Cache remote,
+                        CacheInvalidationBus invalidationBus,
+                        CacheLoadLock loadLock,
+                        RefreshAhead refreshAhead) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.loadLock = loadLock;
+        this.refreshAhead = refreshAhead;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return unwrap(lookup(key, localKey(key)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return (T) serve(key, localKey, cached, valueLoader);
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(localKey, flight);
+        if (leader != null) {
+            // Request khác trong process đang load key này
+            try {
+                return (T) leader.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Object value = load(key, localKey, valueLoader);
+            flight.complete(value);
+            return (T) value;
+        } catch (Throwable e) {
+            // Cả Error (OOM, AssertionError...): request đang chờ leader.join() phải thấy lỗi, không treo mãi
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, flight);
+        }
+    }
+
+    private ValueWrapper lookup(Object key, String localKey) {
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return cached;
+        }
+        ValueWrapper loaded = remote.get(key);
+        if (loaded != null) {
+            local.put(localKey, loaded);
+        }
+        return loaded;
+    }
+
+    private Object load(Object key, String localKey, Callable<?> valueLoader) {
+        ValueWrapper stored = remote.get(key);
+        if (stored != null) {
+            local.put(localKey, stored);
+            return serve(key, localKey, stored, valueLoader);
+        }
+        if (loadLock == null) {
+            return loadAndStore(key, localKey, valueLoader);
+        }
+
+        String token = loadLock.tryAcquire(name, localKey);
+        if (token == null) {
+            ValueWrapper loadedElsewhere = loadLock.await(name, localKey, () -> remote.get(key));
+            if (loadedElsewhere != null) {
+                local.put(localKey, loadedElsewhere);
+                return unwrap(loadedElsewhere).get();
+            }
+            // Pod giữ khoá chưa xong trong thời gian chờ: tự load thay vì bắt request đợi tiếp
+            return loadAndStore(key, localKey, valueLoader);
+        }
+        try {
+            return loadAndStore(key, localKey, valueLoader);
+        } finally {
+            loadLock.release(name, localKey, token);
+        }
+    }
+
+    private Object loadAndStore(Object key, String localKey, Callable<?> valueLoader) {
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        // Không phát invalidation: chỉ nạp lại dữ liệu hiện có trong DB, không phải một lần ghi
+        if (value != null || allowsNullValues()) {
+            Object stored = wrap(value);
+            remote.put(key, stored);
+            local.put(localKey, new SimpleValueWrapper(stored));
+        }
+        return value;
+    }
+
+    /**
+     * Giá trị trả cho request; entry quá soft TTL thì đồng thời được load lại ở nền.
+     */
+    private Object serve(Object key, String localKey, ValueWrapper stored, Callable<?> valueLoader) {
+        Object value = stored.get();
+        if (!(value instanceof RefreshableEntry entry)) {
+            return value;
+        }
+        if (refreshAhead != null && refreshAhead.isStale(entry, System.currentTimeMillis())) {
+            refreshAhead.recordStale();
+            refreshInBackground(key, localKey, valueLoader);
+        }
+        return entry.getValue();
+    }
+
+    private void refreshInBackground(Object key, String localKey, Callable<?> valueLoader) {
+        if (refreshing.putIfAbsent(localKey, Boolean.TRUE) != null) {
+            return;
+        }
+        try {
+            refreshAhead.executor().execute(() -> {
+                try {
+                    refresh(key, localKey, valueLoader);
+                } finally {
+                    refreshing.remove(localKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(localKey);
+            refreshAhead.recordRejected();
+        }
+    }
+
+    private void refresh(Object key, String localKey, Callable<?> valueLoader) {
+        // Dùng chung khoá với load khi miss: pod khác đang load/làm mới key này thì thôi
+        String token = loadLock != null ? loadLock.tryAcquire(name, localKey) : null;
+        if (loadLock != null && token == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Object value = valueLoader.call();
+            if (value != null || allowsNullValues()) {
+                Object stored = wrap(value);
+                remote.put(key, stored);
+                local.put(localKey, new SimpleValueWrapper(stored));
+                invalidationBus.publishEvict(name, localKey);
+            }
+            refreshAhead.recordRefresh(System.nanoTime() - start, true);
+        } catch (Exception e) {
+            // Entry cũ vẫn được dùng đến hard TTL; lần đọc sau sẽ thử lại
+            refreshAhead.recordRefresh(System.nanoTime() - start, false);
+            log.warn("Refresh cache {} key {} failed: {}", name, localKey, e.getMessage());
+        } finally {
+            if (token != null) {
+                loadLock.release(name, localKey, token);
+            }
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = wrap(value);
+        remote.put(key, stored);
+        String localKey = localKey(key);
+        local.put(localKey, new SimpleValueWrapper(stored));
+        invalidationBus.publishEvict(name, localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object stored = wrap(value);
+        ValueWrapper existing = remote.putIfAbsent(key, stored);
+        String localKey = localKey(key);
+        if (existing == null) {
+            local.put(localKey, new SimpleValueWrapper(stored));
+            invalidationBus.publishEvict(name, localKey);
+        } else {
+            local.put(localKey, existing);
+        }
+        return unwrap(existing);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        invalidationBus.publishEvict(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationBus.publishClear(name);
+    }
+
+    /**
+     * Áp dụng invalidation nhận từ pod khác: chỉ bỏ L1, L2 đã được pod gửi cập nhật.
+     */
+    @Override
+    public void evictLocal(String localKey) {
+        local.invalidate(localKey);
+    }
+
+    @Override
+    public void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private Object wrap(Object value) {
+        return refreshAhead != null ? new RefreshableEntry(value, System.currentTimeMillis()) : value;
+    }
+
+    private static ValueWrapper unwrap(ValueWrapper wrapper) {
+        if (wrapper != null && wrapper.get() instanceof RefreshableEntry entry) {
+            return new SimpleValueWrapper(entry.getValue());
+        }
+        return wrapper;
+    }
+
+    private boolean allowsNullValues() {
+        return remote instanceof AbstractValueAdaptingCache adapting && adapting.isAllowNullValues();
+    }
+
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,80 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import com.alpha_code.alpha_code_activity_service.config.CachePolicyProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * CacheManager bọc một CacheManager L2 (Redis), mỗi cache được đặt thêm một L1 Caffeine phía trước.
+ * Kích thước và TTL của L1 lấy theo chính sách của từng cache. Metrics của L1 xuất dưới tên {@code l1_<cache>}.
+ * Cache có {@code refresh-after} được bật refresh-ahead, load lại ở nền trên {@code refreshExecutor}.
+ */
+public class LayeredCacheManager implements CacheManager {
+
+    private final CacheManager remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final Function<String, CachePolicyProperties.Policy> policies;
+    private final CacheLoadLock loadLock;
+    private final Executor refreshExecutor;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public LayeredCacheManager(CacheManager remote,
+                               CacheInvalidationBus invalidationBus,
+                               MeterRegistry meterRegistry,
+                               Function<String, CachePolicyProperties.Policy> policies,
+                               CacheLoadLock loadLock,
+                               Executor refreshExecutor) {
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.meterRegistry = meterRegistry;
+        this.policies = policies;
+        this.loadLock = loadLock;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> createCache(name, remoteCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private LayeredCache createCache(String name, Cache remoteCache) {
+        CachePolicyProperties.Policy policy = policies.apply(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Cache.ValueWrapper> local = Caffeine.newBuilder()
+                .maximumSize(policy.getL1MaxSize())
+                .expireAfterWrite(policy.getL1Ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "l1_" + name);
+
+        RefreshAhead refreshAhead = policy.getRefreshAfter() != null
+                ? new RefreshAhead(name, policy.getRefreshAfter(), refreshExecutor, meterRegistry)
+                : null;
+        LayeredCache cache = new LayeredCache(name, local, remoteCache, invalidationBus, loadLock, refreshAhead);
+        invalidationBus.register(name, cache);
+        return cache;
+    }
+}
@@ -0,0 +1,11 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+/**
+ * Bản sao dữ liệu trong process cần bỏ khi pod khác ghi ({@link CacheInvalidationBus}).
+ */
+interface LocalInvalidationTarget {
+
+    void evictLocal(String key);
+
+    void clearLocal();
+}
@@ -0,0 +1,73 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cấu hình stale-while-revalidate của một cache: entry quá {@code refreshAfter} (soft TTL) vẫn được trả về,
+ * đồng thời được load lại trên {@code executor}.
+ * <p>
+ * Loader chạy trên thread {@code cache-refresh-N}, không có request hiện tại, SecurityContext, MDC hay
+ * transaction của người gọi. Chỉ bật cho cache mà loader chỉ phụ thuộc vào key (catalog đọc DB/gRPC
+ * theo id, code, model); cache có kết quả tuỳ theo người dùng hay request thì load lại ở nền sẽ sai hoặc lỗi.
+ * Danh sách cache được phép nằm ở {@code CachePolicyProperties.REFRESH_AHEAD_CACHES}.
+ * <p>
+ * Metrics (tag {@code cache}): {@code cache.refresh.stale} đếm số lần trả entry cũ,
+ * {@code cache.refresh} đo thời gian load lại (tag {@code result} = success | failure),
+ * {@code cache.refresh.rejected} đếm lần bỏ qua vì executor đầy.
+ */
+public class RefreshAhead {
+
+    private final Duration refreshAfter;
+    private final Executor executor;
+    private final Counter staleCounter;
+    private final Counter rejectedCounter;
+    private final Timer successTimer;
+    private final Timer failureTimer;
+
+    public RefreshAhead(String cacheName, Duration refreshAfter, Executor executor, MeterRegistry meterRegistry) {
+        this.refreshAfter = refreshAfter;
+        this.executor = executor;
+        this.staleCounter = Counter.builder("cache.refresh.stale")
+                .description("Số lần trả entry đã quá soft TTL trong khi load lại ở nền")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("cache.refresh.rejected")
+                .description("Số lần không load lại được vì executor refresh đầy")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        this.successTimer = Timer.builder("cache.refresh")
+                .tag("cache", cacheName)
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.failureTimer = Timer.builder("cache.refresh")
+                .tag("cache", cacheName)
+                .tag("result", "failure")
+                .register(meterRegistry);
+    }
+
+    boolean isStale(RefreshableEntry entry, long now) {
+        return now - entry.getLoadedAt() >= refreshAfter.toMillis();
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    void recordStale() {
+        staleCounter.increment();
+    }
+
+    void recordRejected() {
+        rejectedCounter.increment();
+    }
+
+    void recordRefresh(long nanos, boolean success) {
+        (success ? successTimer : failureTimer).record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
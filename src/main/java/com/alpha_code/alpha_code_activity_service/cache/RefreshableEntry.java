@@ -0,0 +1,22 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Giá trị lưu trong cache có bật refresh-ahead, kèm thời điểm load để biết entry đã quá soft TTL chưa
+ * (TTL trong Redis vẫn là hard TTL). Chỉ {@link LayeredCache} thấy lớp bọc này.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshableEntry implements Serializable {
+
+    private Object value;
+
+    // epoch millis
+    private long loadedAt;
+}
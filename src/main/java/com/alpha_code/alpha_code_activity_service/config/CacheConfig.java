@@ -1,5 +1,14 @@
 package com.alpha_code.alpha_code_activity_service.config;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheInvalidationBus;
+import com.alpha_code.alpha_code_activity_service.cache.CacheLoadLock;
+import com.alpha_code.alpha_code_activity_service.cache.CacheValueSerializer;
+import com.alpha_code.alpha_code_activity_service.cache.LayeredCacheManager;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -7,21 +16,139 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CachePolicyProperties.class)
 public class CacheConfig {
 
+    // L1 trong process trước Redis; TTL ngắn để giới hạn thời gian đọc dữ liệu cũ khi mất message invalidation
+    @Value("${cache.l1.enabled:true}")
+    private boolean localEnabled;
+
+    // smile | json = CacheValueSerializer | jdk = JDK serialization (mặc định của RedisCacheConfiguration)
+    @Value("${cache.serializer:smile}")
+    private String serializer;
+
+    @Value("${cache.invalidation-channel:cache:invalidate}")
+    private String invalidationChannel;
+
+    // Khoá Redis khi load @Cacheable(sync = true) bị miss: một pod load, pod khác chờ kết quả trong L2
+    @Value("${cache.load-lock.enabled:true}")
+    private boolean loadLockEnabled;
+
+    @Value("${cache.load-lock.ttl:PT10S}")
+    private Duration loadLockTtl;
+
+    @Value("${cache.load-lock.wait-timeout:PT3S}")
+    private Duration loadLockWaitTimeout;
+
+    @Value("${cache.load-lock.poll-interval:PT0.05S}")
+    private Duration loadLockPollInterval;
+
+    // Pool load lại entry quá soft TTL (cache có refresh-after); đầy thì bỏ qua, lần đọc sau thử lại
+    @Value("${cache.refresh.threads:2}")
+    private int refreshThreads;
+
+    @Value("${cache.refresh.queue-capacity:256}")
+    private int refreshQueueCapacity;
+
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10)) // TTL mặc định 10 phút
-                .disableCachingNullValues();
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate stringRedisTemplate) {
+        return new CacheInvalidationBus(stringRedisTemplate, invalidationChannel);
+    }
 
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(config)
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheInvalidationBus cacheInvalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(cacheInvalidationBus.getChannel()));
+        return container;
+    }
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     CacheInvalidationBus cacheInvalidationBus,
+                                     MeterRegistry meterRegistry,
+                                     Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                     CachePolicyProperties cachePolicies,
+                                     StringRedisTemplate stringRedisTemplate) {
+        RedisSerializationContext.SerializationPair<Object> valueSerializer = null;
+        if (!"jdk".equalsIgnoreCase(serializer)) {
+            if ("smile".equalsIgnoreCase(serializer)) {
+                // Chuỗi lặp lại (tên class, tên robot model...) ghi dạng tham chiếu thay vì ghi lại
+                objectMapperBuilder.factory(SmileFactory.builder()
+                        .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                        .build());
+            }
+            valueSerializer = RedisSerializationContext.SerializationPair
+                    .fromSerializer(new CacheValueSerializer(objectMapperBuilder.build()));
+        }
+
+        // Cache không khai báo trong cache.caches dùng cache.defaults
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        for (String cacheName : cachePolicies.getCaches().keySet()) {
+            perCache.put(cacheName, redisCacheConfiguration(cachePolicies.resolve(cacheName), valueSerializer));
+        }
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(redisCacheConfiguration(cachePolicies.resolve(""), valueSerializer))
+                .withInitialCacheConfigurations(perCache)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        if (!localEnabled) {
+            return redisCacheManager;
+        }
+        CacheLoadLock loadLock = loadLockEnabled
+                ? new CacheLoadLock(stringRedisTemplate, loadLockTtl, loadLockWaitTimeout, loadLockPollInterval)
+                : null;
+        return new LayeredCacheManager(redisCacheManager, cacheInvalidationBus, meterRegistry, cachePolicies::resolve,
+                loadLock, refreshExecutor());
+    }
+
+    private ThreadPoolExecutor refreshExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                refreshThreads, refreshThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(refreshQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private RedisCacheConfiguration redisCacheConfiguration(CachePolicyProperties.Policy policy,
+                                                            RedisSerializationContext.SerializationPair<Object> valueSerializer) {
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(policy.getTtl());
+        if (!policy.getCacheNullValues()) {
+            config = config.disableCachingNullValues();
+        }
+        if (valueSerializer != null) {
+            // Prefix theo định dạng để không đọc nhầm entry cũ còn trong Redis sau khi đổi serializer
+            config = config
+                    .prefixCacheNameWith(serializer.toLowerCase() + ":" + policy.getKeyPrefix())
+                    .serializeValuesWith(valueSerializer);
+        } else if (!policy.getKeyPrefix().isEmpty()) {
+            config = config.prefixCacheNameWith(policy.getKeyPrefix());
+        }
+        return config;
     }
 }
@@ -0,0 +1,82 @@
+package com.alpha_code.alpha_code_activity_service.config;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chính sách cache theo từng tên cache ({@code cache.caches.<tên>}); field nào không khai báo thì
+ * lấy từ {@code cache.defaults}. Tên cache có dấu gạch dưới phải viết trong ngoặc vuông,
+ * vd. {@code "[qr_codes_list]"}, để Spring Boot không bỏ ký tự '_' khi bind key của Map.
+ */
+@Slf4j
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CachePolicyProperties {
+
+    /**
+     * Cache được phép bật {@code refresh-after}. Loader refresh-ahead chạy ở nền, không có request hay
+     * SecurityContext (xem {@code RefreshAhead}), nên chỉ liệt kê cache mà loader chỉ phụ thuộc vào key.
+     * Thêm cache vào đây sau khi đã kiểm tra loader của nó.
+     */
+    static final Set<String> REFRESH_AHEAD_CACHES = Set.of(
+            "actions", "actions_by_model",
+            "dances", "dances_by_model",
+            "expressions", "expressions_by_model",
+            "skills", "skills_by_model",
+            "extended_actions", "extended_actions_by_model");
+
+    private Policy defaults = new Policy();
+
+    private Map<String, Policy> caches = new LinkedHashMap<>();
+
+    @Data
+    public static class Policy {
+        // TTL trong Redis (L2)
+        private Duration ttl;
+        // Số entry tối đa và TTL của L1 trong process
+        private Long l1MaxSize;
+        private Duration l1Ttl;
+        private Boolean cacheNullValues;
+        // Thêm vào trước tên cache trong key Redis, vd. "catalog:" → smile:catalog:actions::<key>
+        private String keyPrefix;
+        // Soft TTL cho refresh-ahead: entry cũ hơn vẫn được trả và được load lại ở nền; null = tắt
+        private Duration refreshAfter;
+    }
+
+    /**
+     * Chính sách đã gộp với defaults (và giá trị mặc định trong code nếu defaults cũng không có).
+     */
+    public Policy resolve(String cacheName) {
+        Policy specific = caches.getOrDefault(cacheName, new Policy());
+        Policy resolved = new Policy();
+        resolved.setTtl(first(specific.getTtl(), defaults.getTtl(), Duration.ofMinutes(10)));
+        resolved.setL1MaxSize(first(specific.getL1MaxSize(), defaults.getL1MaxSize(), 10_000L));
+        resolved.setL1Ttl(first(specific.getL1Ttl(), defaults.getL1Ttl(), Duration.ofSeconds(30)));
+        resolved.setCacheNullValues(first(specific.getCacheNullValues(), defaults.getCacheNullValues(), false));
+        resolved.setKeyPrefix(first(specific.getKeyPrefix(), defaults.getKeyPrefix(), ""));
+        resolved.setRefreshAfter(first(specific.getRefreshAfter(), defaults.getRefreshAfter(), null));
+        // L1 không giữ lâu hơn L2
+        if (resolved.getL1Ttl().compareTo(resolved.getTtl()) > 0) {
+            resolved.setL1Ttl(resolved.getTtl());
+        }
+        if (resolved.getRefreshAfter() != null && !REFRESH_AHEAD_CACHES.contains(cacheName)) {
+            log.warn("Bỏ refresh-after của cache {}: loader chưa được xác nhận chạy được ngoài request", cacheName);
+            resolved.setRefreshAfter(null);
+        }
+        // Soft TTL không nhỏ hơn TTL thì entry đã hết hạn trước khi kịp làm mới
+        if (resolved.getRefreshAfter() != null && resolved.getRefreshAfter().compareTo(resolved.getTtl()) >= 0) {
+            resolved.setRefreshAfter(null);
+        }
+        return resolved;
+    }
+
+    private static <T> T first(T specific, T fallback, T builtIn) {
+        return specific != null ? specific : fallback != null ? fallback : builtIn;
+    }
+}
@@ -2,12 +2,20 @@ package com.alpha_code.alpha_code_activity_service.config;
 
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 public class S3Config {
@@ -21,16 +29,88 @@ public class S3Config {
     @Value("${cloud.aws.region.static}")
     private String region;
 
+    // Endpoint S3-compatible (MinIO, LocalStack...) cho môi trường local/test; để trống = AWS
+    @Value("${cloud.aws.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${cloud.aws.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+
+    @Value("${cloud.aws.s3.max-concurrency:64}")
+    private int maxConcurrency;
+
+    @Value("${cloud.aws.s3.max-pending-connection-acquires:1000}")
+    private int maxPendingConnectionAcquires;
+
+    @Value("${cloud.aws.s3.connection-acquisition-timeout:PT10S}")
+    private Duration connectionAcquisitionTimeout;
+
+    @Value("${cloud.aws.s3.connection-timeout:PT2S}")
+    private Duration connectionTimeout;
+
+    @Value("${cloud.aws.s3.read-timeout:PT30S}")
+    private Duration readTimeout;
+
+    @Value("${cloud.aws.s3.write-timeout:PT30S}")
+    private Duration writeTimeout;
+
+    @Value("${cloud.aws.s3.connection-max-idle-time:PT60S}")
+    private Duration connectionMaxIdleTime;
+
+    @Value("${cloud.aws.s3.api-call-timeout:PT60S}")
+    private Duration apiCallTimeout;
+
     @Bean
+    @ConditionalOnProperty(name = "cloud.aws.s3.client", havingValue = "sync", matchIfMissing = true)
     public S3Client s3Client() {
-        return S3Client.builder()
+        var builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(
+                        StaticCredentialsProvider.create(
+                                AwsBasicCredentials.create(accessKey, secretKey)
+                        )
+                )
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(pathStyleAccess)
+                        .build());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Client non-blocking trên Netty: một pool connection dùng chung, giới hạn số request đồng thời
+     * và số request chờ connection, có timeout cho từng giai đoạn và cho cả lời gọi API.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cloud.aws.s3.client", havingValue = "async")
+    public S3AsyncClient s3AsyncClient() {
+        var builder = S3AsyncClient.builder()
                 .region(Region.of(region))
                 .credentialsProvider(
                         StaticCredentialsProvider.create(
                                 AwsBasicCredentials.create(accessKey, secretKey)
                         )
                 )
-                .build();
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConcurrency)
+                        .maxPendingConnectionAcquires(maxPendingConnectionAcquires)
+                        .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+                        .connectionTimeout(connectionTimeout)
+                        .readTimeout(readTimeout)
+                        .writeTimeout(writeTimeout)
+                        .connectionMaxIdleTime(connectionMaxIdleTime))
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .apiCallTimeout(apiCallTimeout)
+                        .build())
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(pathStyleAccess)
+                        .build());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
     }
 
     @Bean
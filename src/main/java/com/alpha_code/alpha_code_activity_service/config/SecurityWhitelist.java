@@ -15,6 +15,10 @@ public class SecurityWhitelist {
             "/",
             "/api/v1/auth/**",
             "/api/v1/qr-codes/by-image",
+            "/api/v1/qr-codes/by-image/all",
+            "/api/v1/qr-codes/by-image/stream",
+            "/api/v1/qr-codes/by-images",
+            "/actuator/health/**",
     };
 
     // Permit GET only
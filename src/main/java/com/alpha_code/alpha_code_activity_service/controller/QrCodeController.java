@@ -2,20 +2,38 @@ package com.alpha_code.alpha_code_activity_service.controller;
 
 import com.alpha_code.alpha_code_activity_service.dto.ActivityDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
+import com.alpha_code.alpha_code_activity_service.dto.QrBulkJobDto;
 import com.alpha_code.alpha_code_activity_service.dto.QrCodeDto;
+import com.alpha_code.alpha_code_activity_service.dto.QrScanResultDto;
+import com.alpha_code.alpha_code_activity_service.enums.QrCodeEnum;
+import com.alpha_code.alpha_code_activity_service.exception.ResourceNotFoundException;
+import com.alpha_code.alpha_code_activity_service.qr.QrPngCache;
+import com.alpha_code.alpha_code_activity_service.service.QrCodeBulkService;
+import com.alpha_code.alpha_code_activity_service.service.QrCodeExportService;
 import com.alpha_code.alpha_code_activity_service.service.QrCodeService;
 import com.alpha_code.alpha_code_activity_service.validation.OnCreate;
 import com.alpha_code.alpha_code_activity_service.validation.OnUpdate;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -23,7 +41,13 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Tag(name = "QrCodes")
 public class QrCodeController {
+    // Ảnh của QR code bị xoá còn nằm trong cache của client/CDN tối đa chừng này
+    private static final Duration VERSIONED_IMAGE_MAX_AGE = Duration.ofHours(1);
+
     private final QrCodeService service;
+    private final QrCodeBulkService bulkService;
+    private final QrCodeExportService exportService;
+    private final QrPngCache qrPngCache;
 
     @GetMapping
     @Operation(summary = "Get all Qr codes with pagination and optional status filter")
@@ -34,24 +58,102 @@ public class QrCodeController {
         return service.getAll(page, size, status, accountId);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Parent', 'ROLE_Children')")
+    @Operation(summary = "Export all Qr codes of an account as a ZIP of PNGs or a printable PDF sheet")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "accountId") UUID accountId,
+                                                        @RequestParam(value = "format", defaultValue = "zip") String format) {
+        boolean pdf = "pdf".equalsIgnoreCase(format);
+        if (!pdf && !"zip".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Format chỉ hỗ trợ zip hoặc pdf");
+        }
+
+        StreamingResponseBody body = pdf
+                ? output -> exportService.exportPdf(accountId, output)
+                : output -> exportService.exportZip(accountId, output);
+        return ResponseEntity.ok()
+                .contentType(pdf ? MediaType.APPLICATION_PDF : MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("qr-codes-" + accountId + (pdf ? ".pdf" : ".zip"))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get Qr code by id")
     public QrCodeDto getById(@PathVariable UUID id) {
         return service.getById(id);
     }
 
+    /**
+     * PNG của QR code render ngay từ mã (không qua S3). ETag là hash nội dung ảnh; URL có {@code v}
+     * khớp ETag hiện tại thì được cache {@link #VERSIONED_IMAGE_MAX_AGE}, còn lại client/CDN phải revalidate
+     * (trả 304 nếu không đổi). Không dùng {@code immutable}: QR code đã xoá phải ngừng được phục vụ.
+     */
+    @GetMapping(value = "/{id}/image", produces = MediaType.IMAGE_PNG_VALUE)
+    @Operation(summary = "Get Qr code image (PNG) by id")
+    public ResponseEntity<byte[]> getImage(@PathVariable UUID id,
+                                           @RequestParam(value = "v", required = false) String version,
+                                           WebRequest request) {
+        QrCodeDto qrCodeDto = service.getById(id);
+        // Giống các API theo code (status <> 0): QR code đã xoá không còn ảnh công khai
+        if (qrCodeDto.getStatus() == null || qrCodeDto.getStatus() == QrCodeEnum.DELETED.getCode()) {
+            throw new ResourceNotFoundException("QRCode not found");
+        }
+        String qrCode = qrCodeDto.getQrCode();
+        String etag = qrPngCache.version(qrCode);
+        CacheControl cacheControl = etag.equals(version)
+                ? CacheControl.maxAge(VERSIONED_IMAGE_MAX_AGE).cachePublic()
+                : CacheControl.noCache().cachePublic();
+
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.IMAGE_PNG)
+                .body(qrPngCache.get(qrCode));
+    }
+
     @GetMapping("by-code/{code}")
     @Operation(summary = "Get Qr code by code")
     public QrCodeDto getByCode(@PathVariable String code) {
         return service.getByCode(code);
     }
 
+    @GetMapping("by-code/{code}/activity")
+    @Operation(summary = "Get activity of a Qr code by code")
+    public ActivityDto getActivityByCode(@PathVariable String code) {
+        return service.getActivityByCode(code);
+    }
+
     @PostMapping(value = "/by-image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Get Qr code by image")
     public ActivityDto getByImage(@RequestPart("image") MultipartFile image) {
         return service.getByQrImage(image);
     }
 
+    @PostMapping(value = "/by-image/stream",
+            consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(summary = "Get Qr code by image sent as raw request body (streaming, no multipart buffering)")
+    public ActivityDto getByImageStream(HttpServletRequest request) throws IOException {
+        return service.getByQrImageStream(request.getInputStream(), request.getContentLengthLong());
+    }
+
+    @PostMapping(value = "/by-image/all", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Get activities for every Qr code found in one image")
+    public List<QrScanResultDto> getAllByImage(@RequestPart("image") MultipartFile image) {
+        return service.getAllByQrImage(image);
+    }
+
+    @PostMapping(value = "/by-images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Get activities for a batch of Qr code images")
+    public List<QrScanResultDto> getByImages(@RequestPart("images") List<MultipartFile> images) {
+        return service.getByQrImages(images);
+    }
+
     @PostMapping()
     @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Parent', 'ROLE_Children')")
     @Operation(summary = "Create new Qr code")
@@ -67,6 +169,20 @@ public class QrCodeController {
     }
 
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Parent', 'ROLE_Children')")
+    @Operation(summary = "Bulk create Qr codes (background job, poll progress by job id)")
+    public QrBulkJobDto bulkCreate(@RequestBody List<QrCodeDto> requestDtos) {
+        return bulkService.startBulkCreate(requestDtos);
+    }
+
+    @GetMapping("/bulk/{jobId}")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Parent', 'ROLE_Children')")
+    @Operation(summary = "Get progress of a bulk create Qr code job")
+    public QrBulkJobDto getBulkJob(@PathVariable UUID jobId) {
+        return bulkService.getJob(jobId);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Parent', 'ROLE_Children')")
     @Operation(summary = "Update QrCode")
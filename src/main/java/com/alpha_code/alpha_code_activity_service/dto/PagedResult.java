@@ -2,12 +2,14 @@ package com.alpha_code.alpha_code_activity_service.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.data.domain.Page;
 
 import java.io.Serializable;
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class PagedResult<T> implements Serializable {
     private List<T> data;
     @JsonProperty("total_count")
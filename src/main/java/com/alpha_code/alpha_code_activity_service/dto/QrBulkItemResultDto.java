@@ -0,0 +1,30 @@
+package com.alpha_code.alpha_code_activity_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Kết quả của một QR code trong bulk job (theo thứ tự trong request).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrBulkItemResultDto implements Serializable {
+    private int index;
+    private String qrCode;
+    private UUID id;
+    private String imageUrl;
+    private String error;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public boolean isSuccess() {
+        return error == null && id != null;
+    }
+}
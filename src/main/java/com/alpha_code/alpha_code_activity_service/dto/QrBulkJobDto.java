@@ -0,0 +1,39 @@
+package com.alpha_code.alpha_code_activity_service.dto;
+
+import com.alpha_code.alpha_code_activity_service.enums.QrBulkJobStatusEnum;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrBulkJobDto implements Serializable {
+    private UUID jobId;
+    private Integer status;
+    private int total;
+    private int processed;
+    private int succeeded;
+    private int failed;
+    private String error;
+
+    @Builder.Default
+    private List<QrBulkItemResultDto> results = new ArrayList<>();
+
+    private LocalDateTime createdDate;
+    private LocalDateTime lastUpdated;
+
+    @JsonProperty(value = "statusText", access = JsonProperty.Access.READ_ONLY)
+    public String getStatusText() {
+        return QrBulkJobStatusEnum.fromCode(this.status);
+    }
+}
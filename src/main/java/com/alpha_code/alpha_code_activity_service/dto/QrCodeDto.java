@@ -1,6 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.dto;
 
 import com.alpha_code.alpha_code_activity_service.enums.QrCodeEnum;
+import com.alpha_code.alpha_code_activity_service.enums.QrImageStatusEnum;
 import com.alpha_code.alpha_code_activity_service.validation.OnCreate;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
@@ -44,6 +45,9 @@ public class QrCodeDto implements Serializable {
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String imageUrl;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer imageStatus;
+
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String activityName;
 
@@ -57,4 +61,9 @@ public class QrCodeDto implements Serializable {
     public String getStatusText() {
         return QrCodeEnum.fromCode(this.status);
     }
+
+    @JsonProperty(value = "imageStatusText", access = JsonProperty.Access.READ_ONLY)
+    public String getImageStatusText() {
+        return QrImageStatusEnum.fromCode(this.imageStatus);
+    }
 }
@@ -0,0 +1,30 @@
+package com.alpha_code.alpha_code_activity_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrScanResultDto implements Serializable {
+    // Vị trí ảnh trong request (batch) hoặc thứ tự mã trong khung hình (chế độ nhiều mã), bắt đầu từ 0
+    private int index;
+
+    private String fileName;
+
+    private String qrCode;
+
+    private ActivityDto activity;
+
+    // Lý do thất bại nếu không resolve được activity cho ảnh này
+    private String error;
+
+    public boolean isSuccess() {
+        return activity != null;
+    }
+}
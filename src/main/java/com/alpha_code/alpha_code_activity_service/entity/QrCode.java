@@ -15,7 +15,10 @@ import java.util.UUID;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "qr_code")
+@Table(name = "qr_code", indexes = {
+        // Xuất QR theo keyset (account, createdDate, id)
+        @Index(name = "idx_qr_code_account_created", columnList = "account_id, created_date, id")
+})
 public class QrCode {
     @Id
     @GeneratedValue(generator = "UUID")
@@ -49,6 +52,10 @@ public class QrCode {
     @Column(name = "image_url", nullable = false)
     private String imageUrl;
 
+    // null với dữ liệu cũ = ảnh đã có (xem QrImageStatusEnum)
+    @Column(name = "image_status")
+    private Integer imageStatus;
+
     @NotNull
     @Column(name = "created_date", nullable = false)
     private LocalDateTime createdDate;
@@ -0,0 +1,71 @@
+package com.alpha_code.alpha_code_activity_service.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox cho ảnh QR chờ upload lên S3: được ghi cùng transaction với {@link QrCode},
+ * worker đọc và upload sau khi transaction commit.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "qr_image_outbox", indexes = {
+        @Index(name = "idx_qr_image_outbox_next_attempt", columnList = "next_attempt_at"),
+        @Index(name = "idx_qr_image_outbox_failed_at", columnList = "failed_at")
+})
+public class QrImageOutbox {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(
+            name = "UUID",
+            strategy = "org.hibernate.id.UUIDGenerator"
+    )
+    @Column(name = "id", updatable = false, nullable = false, columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "qr_code_id", nullable = false)
+    private UUID qrCodeId;
+
+    @Size(max = 255)
+    @NotNull
+    @Column(name = "qr_code", nullable = false)
+    private String qrCode;
+
+    @Size(max = 512)
+    @NotNull
+    @Column(name = "object_key", nullable = false, length = 512)
+    private String objectKey;
+
+    @NotNull
+    @Column(name = "payload", nullable = false, columnDefinition = "bytea")
+    private byte[] payload;
+
+    @NotNull
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @NotNull
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+
+    // Khác null = hết số lần thử (dead letter): worker bỏ qua, bị xoá sau thời gian lưu giữ
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt;
+}
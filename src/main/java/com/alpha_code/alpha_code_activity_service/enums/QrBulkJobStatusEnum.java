@@ -0,0 +1,26 @@
+package com.alpha_code.alpha_code_activity_service.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum QrBulkJobStatusEnum {
+    PENDING(0, "ĐANG CHỜ"),
+    RUNNING(1, "ĐANG XỬ LÝ"),
+    COMPLETED(2, "HOÀN THÀNH"),
+    FAILED(3, "THẤT BẠI");
+
+    private final int code;
+    private final String description;
+
+    public static String fromCode(Integer code) {
+        if (code == null) return null;
+        for (QrBulkJobStatusEnum s : values()) {
+            if (s.code == code) {
+                return s.description;
+            }
+        }
+        return "UNDEFINED";
+    }
+}
@@ -0,0 +1,25 @@
+package com.alpha_code.alpha_code_activity_service.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum QrImageStatusEnum {
+    PENDING(0, "ĐANG TẢI ẢNH"),
+    READY(1, "ĐÃ CÓ ẢNH"),
+    FAILED(2, "TẢI ẢNH THẤT BẠI");
+
+    private final int code;
+    private final String description;
+
+    public static String fromCode(Integer code) {
+        if (code == null) return null;
+        for (QrImageStatusEnum s : values()) {
+            if (s.code == code) {
+                return s.description;
+            }
+        }
+        return "UNDEFINED";
+    }
+}
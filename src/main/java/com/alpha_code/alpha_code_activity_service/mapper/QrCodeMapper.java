@@ -3,6 +3,9 @@ package com.alpha_code.alpha_code_activity_service.mapper;
 
 import com.alpha_code.alpha_code_activity_service.dto.QrCodeDto;
 import com.alpha_code.alpha_code_activity_service.entity.QrCode;
+import com.alpha_code.alpha_code_activity_service.enums.QrImageStatusEnum;
+
+import java.util.Objects;
 
 public class QrCodeMapper {
 
@@ -17,7 +20,11 @@ public class QrCodeMapper {
         dto.setStatus(qrCode.getStatus());
         dto.setCreatedDate(qrCode.getCreatedDate());
         dto.setLastUpdated(qrCode.getLastUpdated());
-        dto.setImageUrl(qrCode.getImageUrl());
+        // Ảnh upload thất bại không có trên S3: không trả URL hỏng, client dựa vào imageStatus
+        dto.setImageUrl(Objects.equals(qrCode.getImageStatus(), QrImageStatusEnum.FAILED.getCode())
+                ? null
+                : qrCode.getImageUrl());
+        dto.setImageStatus(qrCode.getImageStatus());
         dto.setActivityId(qrCode.getActivityId());
         dto.setAccountId(qrCode.getAccountId());
         dto.setActivityName(qrCode.getActivity() != null ? qrCode.getActivity().getName() : null);
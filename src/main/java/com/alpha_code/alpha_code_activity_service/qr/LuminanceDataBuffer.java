@@ -0,0 +1,82 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import boofcv.struct.image.GrayU8;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * DataBuffer RGB/RGBA 8-bit "ảo" làm đích cho {@code ImageReader.read}: mỗi pixel reader ghi vào được
+ * đổi ngay sang độ sáng (BT.601) và ghi thẳng vào {@link GrayU8} của detector, không có ảnh RGB trung gian.
+ * Pixel trong suốt được trộn trên nền trắng.
+ * <p>
+ * Chỉ dùng làm đích ghi: {@link #getElem} luôn trả 0. Reader ghi các band của một pixel theo thứ tự
+ * R, G, B (, A) qua {@code SampleModel.setPixels/setSample} — pixel được tính khi ghi band cuối.
+ */
+final class LuminanceDataBuffer extends DataBuffer {
+
+    private final GrayU8 gray;
+    private final int bands;
+    private int red;
+    private int green;
+    private int blue;
+
+    private LuminanceDataBuffer(GrayU8 gray, int bands) {
+        super(TYPE_BYTE, gray.width * gray.height * bands);
+        this.gray = gray;
+        this.bands = bands;
+    }
+
+    /**
+     * BufferedImage RGB (hoặc RGBA nếu {@code alpha}) cùng kích thước {@code gray}, ghi vào {@code gray}.
+     */
+    static BufferedImage image(GrayU8 gray, boolean alpha) {
+        int bands = alpha ? 4 : 3;
+        int[] bandOffsets = alpha ? new int[]{0, 1, 2, 3} : new int[]{0, 1, 2};
+        SampleModel sampleModel = new PixelInterleavedSampleModel(
+                TYPE_BYTE, gray.width, gray.height, bands, gray.width * bands, bandOffsets);
+        WritableRaster raster = Raster.createWritableRaster(sampleModel, new LuminanceDataBuffer(gray, bands), null);
+        ComponentColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+                alpha, false, alpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE, TYPE_BYTE);
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    @Override
+    public int getElem(int bank, int i) {
+        return 0;
+    }
+
+    @Override
+    public void setElem(int bank, int i, int value) {
+        value &= 0xFF;
+        switch (i % bands) {
+            case 0 -> red = value;
+            case 1 -> green = value;
+            case 2 -> {
+                blue = value;
+                if (bands == 3) {
+                    write(i, luminance());
+                }
+            }
+            default -> write(i, (luminance() * value + 255 * (255 - value)) / 255);
+        }
+    }
+
+    private int luminance() {
+        return (77 * red + 150 * green + 29 * blue) >> 8;
+    }
+
+    private void write(int i, int luminance) {
+        int pixel = i / bands;
+        int y = pixel / gray.width;
+        int x = pixel - y * gray.width;
+        gray.data[gray.startIndex + y * gray.stride + x] = (byte) luminance;
+    }
+}
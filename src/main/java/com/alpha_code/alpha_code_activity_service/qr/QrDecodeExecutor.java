@@ -0,0 +1,115 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.alpha_code.alpha_code_activity_service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool riêng, có giới hạn hàng đợi, cho các tác vụ decode ảnh QR tốn CPU,
+ * để một loạt upload lớn không chiếm hết thread Tomcat của các endpoint khác.
+ * Khi hàng đợi đầy, request bị từ chối ngay bằng {@link ServiceUnavailableException} (503 + Retry-After).
+ */
+@Component
+@Slf4j
+public class QrDecodeExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+    private final Counter rejectedCounter;
+
+    public QrDecodeExecutor(QrDetectorPool detectorPool,
+                            @Value("${qr.decoder.executor.queue-capacity:32}") int queueCapacity,
+                            @Value("${qr.decoder.executor.timeout-ms:10000}") long timeoutMs,
+                            @Value("${qr.decoder.executor.retry-after-seconds:2}") long retryAfterSeconds,
+                            MeterRegistry meterRegistry) {
+        // Số worker bằng số detector trong pool nên worker không bao giờ phải chờ detector
+        int threads = detectorPool.getPoolSize();
+        AtomicInteger threadIndex = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-decode-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        this.rejectedCounter = Counter.builder("qr.decoder.executor.rejected")
+                .description("Số tác vụ decode bị từ chối do hàng đợi đầy")
+                .register(meterRegistry);
+        Gauge.builder("qr.decoder.executor.queue.depth", executor, e -> e.getQueue().size())
+                .description("Số tác vụ decode đang chờ trong hàng đợi")
+                .register(meterRegistry);
+        Gauge.builder("qr.decoder.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+
+        log.info("QR decode executor: threads={}, queueCapacity={}", threads, queueCapacity);
+    }
+
+    /**
+     * Chạy tác vụ trên pool decode và chờ kết quả (tối đa {@code qr.decoder.executor.timeout-ms}).
+     */
+    public <T> T execute(Callable<T> task) {
+        return await(submit(task));
+    }
+
+    /**
+     * Đưa tác vụ vào pool decode, ném {@link ServiceUnavailableException} nếu hàng đợi đã đầy.
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Hệ thống đang bận xử lý ảnh QR, vui lòng thử lại sau", retryAfterSeconds);
+        }
+    }
+
+    public <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceUnavailableException("Xử lý ảnh QR quá thời gian, vui lòng thử lại sau", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị gián đoạn khi chờ decode QR code", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Lỗi khi decode QR code", cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,67 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Cache trong bộ nhớ: hash nội dung file ảnh → các QR text đã decode được.
+ * Ảnh upload lại y hệt (cùng bytes) sẽ bỏ qua hoàn toàn bước đọc ảnh và detector.
+ * Chỉ lưu text, không lưu activity, nên dữ liệu activity luôn lấy mới.
+ */
+@Component
+public class QrDecodeResultCache {
+
+    private final Cache<String, List<String>> cache;
+
+    public QrDecodeResultCache(@Value("${qr.decoder.result-cache.max-size:10000}") long maxSize,
+                               @Value("${qr.decoder.result-cache.ttl:PT10M}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Xuất cache.gets{result=hit|miss}, cache.size, cache.evictions... với tag cache=qr_decode_results
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "qr_decode_results");
+    }
+
+    public List<String> get(String contentHash) {
+        return cache.getIfPresent(contentHash);
+    }
+
+    public void put(String contentHash, List<String> decoded) {
+        cache.put(contentHash, List.copyOf(decoded));
+    }
+
+    /**
+     * Hash nội dung ảnh dùng làm key cache (SHA-256, có intrinsic trên JVM hiện đại).
+     */
+    public static String hash(byte[] data) {
+        return toHex(newDigest().digest(data));
+    }
+
+    /**
+     * Digest SHA-256 mới cho mỗi lần hash (MessageDigest không thread-safe).
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+
+    public static String toHex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+}
@@ -0,0 +1,337 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import boofcv.abst.fiducial.QrCodeDetector;
+import boofcv.alg.fiducial.qrcode.QrCode;
+import boofcv.io.image.ConvertBufferedImage;
+import boofcv.struct.image.GrayU8;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode QR code từ ảnh bằng các detector BoofCV lấy từ {@link QrDetectorPool}.
+ * <p>
+ * Ảnh được giải mã thẳng vào buffer grayscale của detector: JPEG (YCbCr hoặc xám) và PNG xám lấy kênh
+ * độ sáng do reader xuất ra, PNG RGB/RGBA 8-bit được đổi sang độ sáng từng pixel qua {@link LuminanceDataBuffer}.
+ * Có subsampling ngay lúc decode nếu ảnh lớn hơn {@code qr.decoder.max-width/max-height}, nên với các định dạng
+ * này không tạo ra bản RGB full-size nào trên heap (PNG palette/16-bit, GIF, BMP... vẫn đi đường chuyển đổi). Ảnh có kích thước trong header vượt
+ * {@code qr.decoder.max-source-pixels} bị từ chối trước khi decode bất kỳ pixel nào.
+ * <p>
+ * Việc dò QR chạy theo kiểu coarse-to-fine: thử trước trên ảnh thu nhỏ
+ * (cạnh dài {@code qr.decoder.pyramid.coarse-edge}), chỉ chạy lại ở độ phân giải đầy đủ khi không tìm thấy.
+ * <p>
+ * Trước BoofCV còn có một tầng ZXing {@code QRCodeReader} nhanh cho ảnh rõ, sáng (đa số lượt scan).
+ * Tầng này chỉ chạy trên ảnh đã thu nhỏ và không bật TRY_HARDER, với ngân sách số pixel
+ * {@code qr.decoder.zxing.max-pixels}, nên chi phí bị chặn trên; thất bại thì rơi xuống BoofCV.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QrDecoderEngine {
+
+    private static final ComponentColorModel GRAY_COLOR_MODEL = new ComponentColorModel(
+            ColorSpace.getInstance(ColorSpace.CS_GRAY), false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+
+    private final QrDetectorPool detectorPool;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${qr.decoder.max-width:4096}")
+    private int maxWidth;
+
+    @Value("${qr.decoder.max-height:4096}")
+    private int maxHeight;
+
+    @Value("${qr.decoder.max-source-pixels:64000000}")
+    private long maxSourcePixels;
+
+    @Value("${qr.decoder.pyramid.enabled:true}")
+    private boolean pyramidEnabled;
+
+    @Value("${qr.decoder.pyramid.coarse-edge:800}")
+    private int coarseEdge;
+
+    @Value("${qr.decoder.zxing.enabled:true}")
+    private boolean zxingEnabled;
+
+    @Value("${qr.decoder.zxing.max-pixels:1000000}")
+    private int zxingMaxPixels;
+
+    /**
+     * Decode nhanh cho trường hợp một QR/ảnh: dừng ngay ở tầng/độ phân giải đầu tiên tìm thấy QR.
+     * Trả về nội dung các QR code tìm thấy (rỗng nếu không có).
+     */
+    public List<String> decode(InputStream input) throws IOException {
+        return decode(input, false);
+    }
+
+    /**
+     * Trả về mọi QR code trong khung hình (nhiều thẻ trong một ảnh).
+     * Bỏ qua tầng ZXing (chỉ đọc một mã) và bước dò thô để không sót các mã nhỏ.
+     */
+    public List<String> decodeAll(InputStream input) throws IOException {
+        return decode(input, true);
+    }
+
+    private List<String> decode(InputStream input, boolean all) throws IOException {
+        // Cache trong memory thay vì ImageIO.createImageInputStream (mặc định cache ra file tạm)
+        // → stream chỉ được đọc một lần, không ghi thêm bản sao nào xuống đĩa
+        try (ImageInputStream imageInput = new MemoryCacheImageInputStream(input)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("File ảnh không hợp lệ hoặc không thể đọc");
+            }
+
+            ImageReader reader = readers.next();
+            QrDetectorContext context = detectorPool.acquire();
+            try {
+                reader.setInput(imageInput, true, true);
+                GrayU8 gray = readGray(reader, context);
+                return all ? detectAll(context, gray) : detect(context, gray);
+            } finally {
+                reader.dispose();
+                detectorPool.release(context);
+            }
+        }
+    }
+
+    private GrayU8 readGray(ImageReader reader, QrDetectorContext context) throws IOException {
+        // Kích thước đọc từ header, chưa decode pixel
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        if ((long) width * height > maxSourcePixels) {
+            throw new IllegalArgumentException("Kích thước ảnh quá lớn (" + width + "x" + height + ")");
+        }
+
+        int step = subsamplingStep(width, height);
+        int targetWidth = (width + step - 1) / step;
+        int targetHeight = (height + step - 1) / step;
+
+        ImageReadParam param = reader.getDefaultReadParam();
+        if (step > 1) {
+            param.setSourceSubsampling(step, step, 0, 0);
+        }
+
+        GrayU8 gray = context.grayBuffer(targetWidth, targetHeight);
+
+        if (supportsGrayscale(reader)) {
+            // Reader ghi trực tiếp kênh độ sáng vào buffer của detector
+            param.setDestination(wrap(gray));
+            reader.read(0, param);
+            return gray;
+        }
+
+        int colorBands = colorBands(reader);
+        if (colorBands > 0) {
+            // PNG RGB/RGBA 8-bit: từng pixel màu được đổi sang độ sáng ngay khi reader ghi vào buffer
+            param.setDestination(LuminanceDataBuffer.image(gray, colorBands == 4));
+            reader.read(0, param);
+            return gray;
+        }
+
+        // Định dạng còn lại (PNG palette/16-bit, GIF, BMP...) → đọc đã subsample rồi chuyển đổi
+        BufferedImage image = reader.read(0, param);
+        return ConvertBufferedImage.convertFrom(image, gray);
+    }
+
+    private List<String> detect(QrDetectorContext context, GrayU8 gray) {
+        long start = System.nanoTime();
+
+        // Ảnh thu nhỏ dùng chung cho tầng ZXing và bước dò thô của BoofCV
+        GrayU8 coarse = null;
+        int longEdge = Math.max(gray.width, gray.height);
+        if (pyramidEnabled && longEdge > coarseEdge) {
+            int factor = (longEdge + coarseEdge - 1) / coarseEdge;
+            coarse = context.coarseBuffer(gray.width / factor, gray.height / factor);
+            downsample(gray, factor, coarse);
+        }
+
+        // Tầng 1: ZXing
+        String scale = coarse != null ? "coarse" : "full";
+        List<String> messages = decodeZxing(context, coarse != null ? coarse : gray);
+        String tier = "zxing";
+
+        // Tầng 2: BoofCV, coarse-to-fine
+        if (messages.isEmpty()) {
+            long boofStart = System.nanoTime();
+            tier = "boofcv";
+            if (coarse != null) {
+                messages = detectAt(context, coarse);
+            }
+            // Không tìm thấy ở ảnh thu nhỏ → thử lại ở độ phân giải đầy đủ
+            if (messages.isEmpty()) {
+                messages = detectAt(context, gray);
+                scale = coarse != null ? "full_after_coarse" : "full";
+            }
+            recordTier("boofcv", !messages.isEmpty(), System.nanoTime() - boofStart);
+        }
+
+        if (messages.isEmpty()) {
+            tier = "none";
+        }
+        meterRegistry.counter("qr.decoder.tier.result", "tier", tier).increment();
+
+        long elapsed = System.nanoTime() - start;
+        meterRegistry.timer("qr.decoder.detect", "scale", scale, "found", String.valueOf(!messages.isEmpty()))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("QR detect tier={} scale={} size={}x{} found={} took={}ms",
+                tier, scale, gray.width, gray.height, messages.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return messages;
+    }
+
+    private List<String> detectAll(QrDetectorContext context, GrayU8 gray) {
+        long start = System.nanoTime();
+        List<String> messages = detectAt(context, gray).stream().distinct().toList();
+
+        long elapsed = System.nanoTime() - start;
+        meterRegistry.timer("qr.decoder.detect", "scale", "full_all", "found", String.valueOf(!messages.isEmpty()))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("QR detect all size={}x{} found={} took={}ms",
+                gray.width, gray.height, messages.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return messages;
+    }
+
+    private List<String> decodeZxing(QrDetectorContext context, GrayU8 gray) {
+        if (!zxingEnabled || gray.width * gray.height > zxingMaxPixels) {
+            return List.of();
+        }
+
+        long start = System.nanoTime();
+        String text = null;
+        try {
+            // Kênh độ sáng của GrayU8 dùng trực tiếp làm mặt phẳng Y cho ZXing (không copy)
+            PlanarYUVLuminanceSource source = new PlanarYUVLuminanceSource(
+                    gray.data, gray.stride, gray.height, 0, 0, gray.width, gray.height, false);
+            Result result = context.getZxingReader().decode(new BinaryBitmap(new HybridBinarizer(source)));
+            text = result.getText();
+        } catch (ReaderException e) {
+            // Không đọc được → để BoofCV xử lý
+        } finally {
+            context.getZxingReader().reset();
+        }
+
+        boolean found = text != null && !text.isBlank();
+        recordTier("zxing", found, System.nanoTime() - start);
+        return found ? List.of(text) : List.of();
+    }
+
+    private void recordTier(String tier, boolean found, long elapsedNanos) {
+        Timer.builder("qr.decoder.tier.latency")
+                .description("Thời gian decode theo từng tầng (ZXing / BoofCV)")
+                .tag("tier", tier)
+                .tag("found", String.valueOf(found))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private List<String> detectAt(QrDetectorContext context, GrayU8 gray) {
+        QrCodeDetector<GrayU8> detector = context.getDetector();
+        detector.process(gray);
+
+        // Copy nội dung ra trước khi trả detector về pool
+        List<String> messages = new ArrayList<>();
+        for (QrCode detection : detector.getDetections()) {
+            if (detection.message != null && !detection.message.isBlank()) {
+                messages.add(detection.message);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Thu nhỏ ảnh theo hệ số nguyên bằng cách lấy trung bình từng khối factor x factor.
+     */
+    private static void downsample(GrayU8 src, int factor, GrayU8 dst) {
+        int area = factor * factor;
+        for (int y = 0; y < dst.height; y++) {
+            int dstIndex = dst.startIndex + y * dst.stride;
+            int srcRow = src.startIndex + y * factor * src.stride;
+            for (int x = 0; x < dst.width; x++) {
+                int sum = 0;
+                int blockStart = srcRow + x * factor;
+                for (int dy = 0; dy < factor; dy++) {
+                    int index = blockStart + dy * src.stride;
+                    for (int dx = 0; dx < factor; dx++) {
+                        sum += src.data[index + dx] & 0xFF;
+                    }
+                }
+                dst.data[dstIndex++] = (byte) (sum / area);
+            }
+        }
+    }
+
+    private int subsamplingStep(int width, int height) {
+        int step = 1;
+        while ((width + step - 1) / step > maxWidth || (height + step - 1) / step > maxHeight) {
+            step++;
+        }
+        return step;
+    }
+
+    private static boolean supportsGrayscale(ImageReader reader) throws IOException {
+        Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+        while (types.hasNext()) {
+            if (types.next().getBufferedImageType() == BufferedImage.TYPE_BYTE_GRAY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 3 hoặc 4 nếu reader xuất được RGB / RGBA 8-bit interleaved (vd. PNG truecolor), 0 nếu không.
+     */
+    private static int colorBands(ImageReader reader) throws IOException {
+        int bands = 0;
+        Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+        while (types.hasNext()) {
+            int type = types.next().getBufferedImageType();
+            if (type == BufferedImage.TYPE_4BYTE_ABGR) {
+                return 4;
+            }
+            if (type == BufferedImage.TYPE_3BYTE_BGR) {
+                bands = 3;
+            }
+        }
+        return bands;
+    }
+
+    /**
+     * Bọc mảng pixel của GrayU8 thành BufferedImage TYPE_BYTE_GRAY dùng chung dữ liệu (không copy).
+     */
+    private static BufferedImage wrap(GrayU8 gray) {
+        DataBufferByte buffer = new DataBufferByte(gray.data, gray.stride * gray.height);
+        WritableRaster raster = Raster.createInterleavedRaster(
+                buffer, gray.width, gray.height, gray.stride, 1, new int[]{0}, null);
+        return new BufferedImage(GRAY_COLOR_MODEL, raster, false, null);
+    }
+}
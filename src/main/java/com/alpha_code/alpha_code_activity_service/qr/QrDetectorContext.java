@@ -0,0 +1,42 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import boofcv.abst.fiducial.QrCodeDetector;
+import boofcv.factory.fiducial.FactoryFiducial;
+import boofcv.struct.image.GrayU8;
+import com.google.zxing.qrcode.QRCodeReader;
+
+/**
+ * Một detector BoofCV (kèm reader ZXing cho fast-path) và buffer grayscale dùng lại giữa các lần scan.
+ * Không thread-safe: chỉ một luồng được giữ context tại một thời điểm (xem {@link QrDetectorPool}).
+ */
+public class QrDetectorContext {
+
+    private final QrCodeDetector<GrayU8> detector = FactoryFiducial.qrcode(null, GrayU8.class);
+    private final QRCodeReader zxingReader = new QRCodeReader();
+    private final GrayU8 gray = new GrayU8(1, 1);
+    private final GrayU8 coarse = new GrayU8(1, 1);
+
+    public QrCodeDetector<GrayU8> getDetector() {
+        return detector;
+    }
+
+    public QRCodeReader getZxingReader() {
+        return zxingReader;
+    }
+
+    /**
+     * Trả về buffer grayscale đúng kích thước ảnh, chỉ cấp phát lại khi ảnh lớn hơn dung lượng hiện có.
+     */
+    public GrayU8 grayBuffer(int width, int height) {
+        gray.reshape(width, height);
+        return gray;
+    }
+
+    /**
+     * Buffer riêng cho ảnh thu nhỏ dùng ở bước dò thô (pyramid).
+     */
+    public GrayU8 coarseBuffer(int width, int height) {
+        coarse.reshape(width, height);
+        return coarse;
+    }
+}
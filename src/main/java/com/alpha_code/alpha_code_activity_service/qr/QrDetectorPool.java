@@ -0,0 +1,101 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.alpha_code.alpha_code_activity_service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool giới hạn các {@link QrDetectorContext} để không phải dựng lại detector
+ * và cấp phát buffer grayscale cho mỗi request scan QR.
+ * Hết thời gian chờ detector được báo giống hàng đợi decode đầy: {@link ServiceUnavailableException} (503 + Retry-After).
+ */
+@Component
+@Slf4j
+public class QrDetectorPool {
+
+    private final int poolSize;
+    private final long acquireTimeoutMs;
+    private final long retryAfterSeconds;
+    private final BlockingQueue<QrDetectorContext> idle;
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public QrDetectorPool(@Value("${qr.decoder.pool-size:0}") int poolSize,
+                          @Value("${qr.decoder.acquire-timeout-ms:5000}") long acquireTimeoutMs,
+                          @Value("${qr.decoder.executor.retry-after-seconds:2}") long retryAfterSeconds,
+                          MeterRegistry meterRegistry) {
+        // pool-size <= 0 → mặc định bằng số CPU core
+        this.poolSize = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.idle = new ArrayBlockingQueue<>(this.poolSize);
+
+        this.waitTimer = Timer.builder("qr.decoder.pool.wait")
+                .description("Thời gian chờ lấy QR detector từ pool")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("qr.decoder.pool.hits")
+                .description("Số lần dùng lại detector có sẵn trong pool")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("qr.decoder.pool.misses")
+                .description("Số lần phải tạo detector mới")
+                .register(meterRegistry);
+        Gauge.builder("qr.decoder.pool.idle", idle, BlockingQueue::size)
+                .register(meterRegistry);
+
+        log.info("QR detector pool size = {}", this.poolSize);
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public QrDetectorContext acquire() {
+        long start = System.nanoTime();
+        try {
+            QrDetectorContext context = idle.poll();
+            if (context != null) {
+                hitCounter.increment();
+                return context;
+            }
+
+            // Chưa đủ poolSize detector → tạo thêm
+            if (created.incrementAndGet() <= poolSize) {
+                missCounter.increment();
+                return new QrDetectorContext();
+            }
+            created.decrementAndGet();
+
+            // Pool đã đầy → chờ detector được trả lại
+            context = idle.poll(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            if (context == null) {
+                throw new ServiceUnavailableException("Hệ thống đang bận xử lý QR code, vui lòng thử lại sau", retryAfterSeconds);
+            }
+            hitCounter.increment();
+            return context;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Hệ thống đang bận xử lý QR code, vui lòng thử lại sau", retryAfterSeconds);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void release(QrDetectorContext context) {
+        if (context != null && !idle.offer(context)) {
+            created.decrementAndGet();
+        }
+    }
+}
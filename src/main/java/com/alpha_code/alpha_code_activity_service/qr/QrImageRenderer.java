@@ -0,0 +1,196 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Render QR code thẳng ra PNG grayscale 1-bit, không qua {@code BitMatrix} phóng to
+ * hay {@code BufferedImage} trung gian.
+ * <p>
+ * Mỗi hàng module chỉ được dựng một lần rồi copy cho các hàng pixel lặp lại; buffer scanline và
+ * buffer nén được giữ theo từng thread nên không cấp phát lại giữa các lần render. Deflater thì tạo và
+ * {@code end()} trong từng lần render: bộ nhớ native của nó không được giải phóng theo thread (pool
+ * servlet, thread bulk job) nếu giữ trong ThreadLocal.
+ * Bố cục (lề, hệ số phóng, căn giữa) giống {@code QRCodeWriter} để ảnh sinh ra không đổi kích thước.
+ */
+@Component
+@Slf4j
+public class QrImageRenderer {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+    // Tăng khi thay đổi cách render (bố cục, bit depth...) để ảnh mới không trùng key với ảnh cũ
+    private static final int RENDER_VERSION = 1;
+
+    private final int size;
+    private final int margin;
+    private final ErrorCorrectionLevel errorCorrection;
+
+    private final ThreadLocal<RenderBuffers> buffers = ThreadLocal.withInitial(RenderBuffers::new);
+
+    public QrImageRenderer(@Value("${qr.render.size:300}") int size,
+                           @Value("${qr.render.margin:4}") int margin,
+                           @Value("${qr.render.error-correction:L}") ErrorCorrectionLevel errorCorrection) {
+        this.size = size;
+        this.margin = margin;
+        this.errorCorrection = errorCorrection;
+        log.info("QR renderer: size={}, margin={}, errorCorrection={}", size, margin, errorCorrection);
+    }
+
+    /**
+     * Render theo cấu hình mặc định {@code qr.render.*}.
+     */
+    public byte[] renderPng(String text) throws WriterException {
+        return renderPng(text, size, errorCorrection);
+    }
+
+    /**
+     * Ma trận module của QR (không có lề), dùng khi cần vẽ QR dạng vector (vd. xuất PDF).
+     */
+    public ByteMatrix encode(String text) throws WriterException {
+        return encode(text, errorCorrection);
+    }
+
+    /**
+     * SHA-256 (hex) của text cùng cấu hình render: cùng mã và cùng cấu hình luôn cho cùng ảnh,
+     * nên giá trị này định danh được nội dung PNG mà không cần render.
+     */
+    public String fingerprint(String text) {
+        String input = RENDER_VERSION + "|" + size + "|" + margin + "|" + errorCorrection + "|" + text;
+        return QrDecodeResultCache.toHex(QrDecodeResultCache.newDigest().digest(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Object key S3 theo nội dung, ảnh giống hệt chỉ cần lưu một lần.
+     */
+    public String imageKey(String text) {
+        return "qrcodes/" + fingerprint(text) + ".png";
+    }
+
+    public byte[] renderPng(String text, int size, ErrorCorrectionLevel errorCorrection) throws WriterException {
+        ByteMatrix matrix = encode(text, errorCorrection);
+        int modules = matrix.getWidth();
+        int outputSize = Math.max(size, modules + margin * 2);
+        int scale = outputSize / (modules + margin * 2);
+        int padding = (outputSize - modules * scale) / 2;
+
+        // Mỗi scanline: 1 byte filter (0 = None) + 1 bit/pixel, bit 0 = đen, 1 = trắng
+        int stride = 1 + (outputSize + 7) / 8;
+        RenderBuffers buf = buffers.get();
+        byte[] raw = buf.raw(stride * outputSize);
+
+        // Nền trắng: hàng đầu tiên rồi copy cho các hàng còn lại
+        raw[0] = 0;
+        Arrays.fill(raw, 1, stride, (byte) 0xFF);
+        for (int row = 1; row < outputSize; row++) {
+            System.arraycopy(raw, 0, raw, row * stride, stride);
+        }
+
+        for (int y = 0; y < modules; y++) {
+            int first = (padding + y * scale) * stride;
+            for (int x = 0; x < modules; x++) {
+                if (matrix.get(x, y) == 1) {
+                    int px = padding + x * scale;
+                    for (int i = px; i < px + scale; i++) {
+                        raw[first + 1 + (i >> 3)] &= (byte) ~(0x80 >>> (i & 7));
+                    }
+                }
+            }
+            // Các hàng pixel còn lại của cùng hàng module giống hệt hàng đầu
+            for (int r = 1; r < scale; r++) {
+                System.arraycopy(raw, first, raw, first + r * stride, stride);
+            }
+        }
+
+        int compressedLength = buf.deflate(raw, stride * outputSize);
+        return writePng(buf, outputSize, compressedLength);
+    }
+
+    private static ByteMatrix encode(String text, ErrorCorrectionLevel errorCorrection) throws WriterException {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Nội dung QR code không được rỗng");
+        }
+        return Encoder.encode(text, errorCorrection).getMatrix();
+    }
+
+    private static byte[] writePng(RenderBuffers buf, int imageSize, int compressedLength) {
+        byte[] png = new byte[PNG_SIGNATURE.length + (12 + 13) + (12 + compressedLength) + 12];
+        ByteBuffer out = ByteBuffer.wrap(png);
+        out.put(PNG_SIGNATURE);
+
+        // IHDR: width, height, bit depth 1, color type 0 (grayscale), compression 0, filter 0, interlace 0
+        int start = beginChunk(out, IHDR, 13);
+        out.putInt(imageSize).putInt(imageSize).put((byte) 1).put((byte) 0).put((byte) 0).put((byte) 0).put((byte) 0);
+        endChunk(out, buf.crc, start);
+
+        start = beginChunk(out, IDAT, compressedLength);
+        out.put(buf.compressed, 0, compressedLength);
+        endChunk(out, buf.crc, start);
+
+        start = beginChunk(out, IEND, 0);
+        endChunk(out, buf.crc, start);
+        return png;
+    }
+
+    private static int beginChunk(ByteBuffer out, byte[] type, int length) {
+        out.putInt(length);
+        int start = out.position();
+        out.put(type);
+        return start;
+    }
+
+    private static void endChunk(ByteBuffer out, CRC32 crc, int start) {
+        // CRC tính trên type + data
+        crc.reset();
+        crc.update(out.array(), start, out.position() - start);
+        out.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Buffer dùng lại theo thread; chỉ lớn lên khi gặp ảnh lớn hơn.
+     */
+    private static final class RenderBuffers {
+        private final CRC32 crc = new CRC32();
+        private byte[] raw = new byte[0];
+        private byte[] compressed = new byte[4096];
+
+        byte[] raw(int length) {
+            if (raw.length < length) {
+                raw = new byte[length];
+            }
+            return raw;
+        }
+
+        int deflate(byte[] input, int length) {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                deflater.setInput(input, 0, length);
+                deflater.finish();
+                int written = 0;
+                while (!deflater.finished()) {
+                    if (written == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                    }
+                    written += deflater.deflate(compressed, written, compressed.length - written);
+                }
+                return written;
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
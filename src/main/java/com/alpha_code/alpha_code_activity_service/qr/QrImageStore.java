@@ -0,0 +1,74 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.alpha_code.alpha_code_activity_service.service.S3Service;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Lưu ảnh QR theo nội dung (content-addressed): key là hash của mã cùng cấu hình render,
+ * nên tạo lại ảnh cho cùng một mã không sinh thêm object mới trên S3.
+ * <p>
+ * Các key đã biết là có trên S3 được nhớ trong bộ nhớ; lần tạo lại sau đó không render, không HEAD
+ * và không PUT. Chỉ nhớ kết quả "có" (object không bao giờ bị ghi đè bằng nội dung khác),
+ * kết quả "chưa có" luôn được hỏi lại S3.
+ */
+@Component
+@Slf4j
+public class QrImageStore {
+
+    private final QrImageRenderer qrImageRenderer;
+    private final S3Service s3Service;
+    private final Cache<String, Boolean> storedKeys;
+
+    public QrImageStore(QrImageRenderer qrImageRenderer,
+                        S3Service s3Service,
+                        @Value("${qr.image-store.known-keys.max-size:100000}") long maxSize,
+                        @Value("${qr.image-store.known-keys.ttl:PT24H}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.qrImageRenderer = qrImageRenderer;
+        this.s3Service = s3Service;
+        this.storedKeys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                // TTL để vẫn nhận ra object bị xoá ngoài ứng dụng (lifecycle rule, dọn bucket thủ công)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, storedKeys, "qr_image_keys");
+    }
+
+    public String key(String code) {
+        return qrImageRenderer.imageKey(code);
+    }
+
+    /**
+     * Object đã có trên S3 chưa; lỗi khi HEAD được coi như chưa có để caller upload lại (PUT cùng key là idempotent).
+     */
+    public boolean isStored(String key) {
+        if (storedKeys.getIfPresent(key) != null) {
+            return true;
+        }
+        try {
+            if (s3Service.exists(key)) {
+                storedKeys.put(key, Boolean.TRUE);
+                return true;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Check QR image {} on S3 failed: {}", key, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Ghi nhận object vừa upload thành công.
+     */
+    public void markStored(String key) {
+        storedKeys.put(key, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,292 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.entity.QrCode;
+import com.alpha_code.alpha_code_activity_service.entity.QrImageOutbox;
+import com.alpha_code.alpha_code_activity_service.enums.QrImageStatusEnum;
+import com.alpha_code.alpha_code_activity_service.repository.QrCodeRepository;
+import com.alpha_code.alpha_code_activity_service.repository.QrImageOutboxRepository;
+import com.alpha_code.alpha_code_activity_service.service.S3Service;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Upload ảnh QR lên S3 ngoài transaction tạo/sửa QR code (transactional outbox).
+ * <p>
+ * Ở chế độ {@code qr.image-upload.mode=async}, service chỉ ghi QR code (imageStatus = PENDING, imageUrl
+ * đã biết trước từ object key) cùng một bản ghi outbox chứa PNG trong cùng transaction. Sau khi commit,
+ * worker upload PNG rồi đánh dấu ảnh READY; lỗi thì thử lại với backoff, hết số lần thử thì FAILED.
+ * Job {@link Scheduled} định kỳ quét lại outbox nên bản ghi không bị mất khi instance dừng giữa chừng.
+ * <p>
+ * Bản ghi hết số lần thử được giữ lại làm dead letter ({@code failedAt} khác null): worker bỏ qua, metric
+ * {@code qr.image.upload.dead_letter} báo số bản ghi đang nằm đó, và job dọn xoá chúng sau
+ * {@code qr.image-upload.dead-letter.retention}. Muốn upload lại trong thời gian đó: đặt {@code failed_at = NULL},
+ * {@code attempts = 0}.
+ * <p>
+ * Mặc định là {@code sync} (upload trong request như trước); bật {@code async} theo từng môi trường, sau khi
+ * bảng {@code qr_image_outbox} đã có trong DB.
+ */
+@Component
+@Slf4j
+public class QrImageUploadOutbox {
+
+    private final QrImageOutboxRepository outboxRepository;
+    private final QrCodeRepository qrCodeRepository;
+    private final S3Service s3Service;
+    private final QrImageStore qrImageStore;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final CacheGenerations cacheGenerations;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration retryDelay;
+    private final Duration deadLetterRetention;
+
+    private final Counter exhaustedCounter;
+    private final AtomicLong deadLetters = new AtomicLong();
+
+    // Một worker, hàng đợi 1: nhiều lần đánh thức liên tiếp gộp lại thành một lượt quét
+    private final ThreadPoolExecutor worker = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1),
+            runnable -> {
+                Thread thread = new Thread(runnable, "qr-image-upload");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    public QrImageUploadOutbox(QrImageOutboxRepository outboxRepository,
+                               QrCodeRepository qrCodeRepository,
+                               S3Service s3Service,
+                               QrImageStore qrImageStore,
+                               TransactionTemplate transactionTemplate,
+                               CacheManager cacheManager,
+                               CacheGenerations cacheGenerations,
+                               @Value("${qr.image-upload.mode:sync}") String mode,
+                               @Value("${qr.image-upload.batch-size:20}") int batchSize,
+                               @Value("${qr.image-upload.max-attempts:5}") int maxAttempts,
+                               @Value("${qr.image-upload.lease:PT1M}") Duration lease,
+                               @Value("${qr.image-upload.retry-delay:PT10S}") Duration retryDelay,
+                               @Value("${qr.image-upload.dead-letter.retention:P7D}") Duration deadLetterRetention,
+                               MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.qrCodeRepository = qrCodeRepository;
+        this.s3Service = s3Service;
+        this.qrImageStore = qrImageStore;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.cacheGenerations = cacheGenerations;
+        this.enabled = "async".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.retryDelay = retryDelay;
+        this.deadLetterRetention = deadLetterRetention;
+
+        this.exhaustedCounter = Counter.builder("qr.image.upload.exhausted")
+                .description("Số ảnh QR upload thất bại sau khi hết số lần thử")
+                .register(meterRegistry);
+        Gauge.builder("qr.image.upload.dead_letter", deadLetters, AtomicLong::get)
+                .description("Số bản ghi outbox hết số lần thử đang chờ bị dọn")
+                .register(meterRegistry);
+        log.info("QR image upload mode = {}", enabled ? "async" : "sync");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ghi ảnh vào outbox trong transaction hiện tại; worker được đánh thức sau khi commit.
+     */
+    public void enqueue(UUID qrCodeId, String qrCode, String objectKey, byte[] png) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.save(QrImageOutbox.builder()
+                .qrCodeId(qrCodeId)
+                .qrCode(qrCode)
+                .objectKey(objectKey)
+                .payload(png)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdDate(now)
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${qr.image-upload.poll-interval-ms:10000}")
+    public void poll() {
+        if (enabled) {
+            drain();
+        }
+    }
+
+    /**
+     * Đánh dấu bản ghi hết lượt thử còn sót, xoá dead letter quá hạn lưu giữ và cập nhật gauge.
+     */
+    @Scheduled(fixedDelayString = "${qr.image-upload.dead-letter.purge-interval-ms:3600000}")
+    public void purgeDeadLetters() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Long remaining = transactionTemplate.execute(status -> {
+            int marked = outboxRepository.markExhausted(now, maxAttempts);
+            int purged = outboxRepository.deleteFailedBefore(now.minus(deadLetterRetention));
+            if (marked > 0 || purged > 0) {
+                log.info("QR image outbox dead letters: marked {}, purged {}", marked, purged);
+            }
+            return outboxRepository.countByFailedAtIsNotNull();
+        });
+        if (remaining != null) {
+            deadLetters.set(remaining);
+        }
+    }
+
+    private void wakeUp() {
+        worker.execute(this::drain);
+    }
+
+    void drain() {
+        List<QrImageOutbox> batch;
+        do {
+            batch = transactionTemplate.execute(status -> claim());
+            if (batch == null) return;
+            upload(batch);
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Lấy các bản ghi đến hạn (SKIP LOCKED) và đẩy nextAttemptAt ra sau một khoảng lease,
+     * để instance khác không upload trùng trong lúc bản ghi đang được xử lý ngoài transaction.
+     */
+    private List<QrImageOutbox> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<QrImageOutbox> due = outboxRepository.findDueForUpdate(now, maxAttempts, PageRequest.of(0, batchSize));
+        due.forEach(entry -> entry.setNextAttemptAt(now.plus(lease)));
+        return due;
+    }
+
+    private void upload(List<QrImageOutbox> batch) {
+        // Upload S3 nằm ngoài transaction → không giữ connection DB trong lúc chờ S3.
+        // Cả batch được gửi cùng lúc (client async giới hạn số request đồng thời), rồi mới ghi kết quả.
+        List<CompletableFuture<String>> uploads = new ArrayList<>(batch.size());
+        for (QrImageOutbox entry : batch) {
+            CompletableFuture<String> upload;
+            try {
+                upload = s3Service.uploadBytesAsync(entry.getPayload(), entry.getObjectKey(), "image/png");
+            } catch (RuntimeException e) {
+                upload = CompletableFuture.failedFuture(e);
+            }
+            uploads.add(upload);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            QrImageOutbox entry = batch.get(i);
+            try {
+                uploads.get(i).join();
+                onUploaded(entry);
+            } catch (CompletionException e) {
+                onFailed(entry, e.getCause() != null ? e.getCause() : e);
+            } catch (RuntimeException e) {
+                onFailed(entry, e);
+            }
+        }
+    }
+
+    private void onUploaded(QrImageOutbox entry) {
+        qrImageStore.markStored(entry.getObjectKey());
+        String imageUrl = s3Service.getObjectUrl(entry.getObjectKey());
+        transactionTemplate.executeWithoutResult(status -> {
+            qrCodeRepository.updateImageStatus(entry.getQrCodeId(), imageUrl, QrImageStatusEnum.READY.getCode());
+            outboxRepository.deleteById(entry.getId());
+        });
+        evictCaches(entry);
+        log.info("Uploaded QR image {} for QR code {}", entry.getObjectKey(), entry.getQrCodeId());
+    }
+
+    private void onFailed(QrImageOutbox entry, Throwable error) {
+        int attempts = entry.getAttempts() + 1;
+        boolean exhausted = attempts >= maxAttempts;
+        log.warn("Upload QR image {} failed (attempt {}/{}): {}",
+                entry.getObjectKey(), attempts, maxAttempts, error.getMessage());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            entry.setAttempts(attempts);
+            // Backoff tăng gấp đôi sau mỗi lần lỗi
+            entry.setNextAttemptAt(now.plus(retryDelay.multipliedBy(1L << Math.min(attempts - 1, 10))));
+            entry.setLastError(error.getMessage());
+            if (exhausted) {
+                entry.setFailedAt(now);
+            }
+            outboxRepository.save(entry);
+            if (exhausted) {
+                String imageUrl = s3Service.getObjectUrl(entry.getObjectKey());
+                qrCodeRepository.updateImageStatus(entry.getQrCodeId(), imageUrl, QrImageStatusEnum.FAILED.getCode());
+            }
+        });
+        if (exhausted) {
+            exhaustedCounter.increment();
+            deadLetters.incrementAndGet();
+            log.error("Upload QR image {} for QR code {} gave up after {} attempts: {}",
+                    entry.getObjectKey(), entry.getQrCodeId(), attempts, error.getMessage());
+            evictCaches(entry);
+        }
+    }
+
+    private void evictCaches(QrImageOutbox entry) {
+        Cache qrCodes = cacheManager.getCache("qr_codes");
+        if (qrCodes != null) {
+            qrCodes.evict(entry.getQrCodeId());
+            qrCodes.evict(entry.getQrCode());
+        }
+        // Chỉ danh sách của account sở hữu QR code thay đổi imageStatus
+        UUID accountId = qrCodeRepository.findById(entry.getQrCodeId())
+                .map(QrCode::getAccountId)
+                .orElse(null);
+        cacheGenerations.bump("qr_codes_list", "account", accountId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,53 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.zxing.WriterException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache LRU trong bộ nhớ cho PNG của QR code phục vụ trực tiếp qua API.
+ * <p>
+ * Key là {@link QrImageRenderer#fingerprint(String)}, nên cùng mã luôn trúng cùng một entry
+ * và entry không bao giờ cũ. Giới hạn theo tổng số byte ảnh, không theo số entry.
+ */
+@Component
+public class QrPngCache {
+
+    private final QrImageRenderer qrImageRenderer;
+    private final Cache<String, byte[]> cache;
+
+    public QrPngCache(QrImageRenderer qrImageRenderer,
+                      @Value("${qr.image-serve.cache.max-bytes:33554432}") long maxBytes,
+                      MeterRegistry meterRegistry) {
+        this.qrImageRenderer = qrImageRenderer;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, byte[] png) -> png.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "qr_png");
+    }
+
+    /**
+     * Định danh nội dung ảnh, dùng làm ETag; tính được mà không cần render.
+     */
+    public String version(String code) {
+        return qrImageRenderer.fingerprint(code);
+    }
+
+    public byte[] get(String code) {
+        return cache.get(version(code), key -> render(code));
+    }
+
+    private byte[] render(String code) {
+        try {
+            return qrImageRenderer.renderPng(code);
+        } catch (WriterException e) {
+            throw new IllegalArgumentException("Không tạo được ảnh QR cho mã " + code, e);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+/**
+ * Ghi tờ in QR code dạng PDF (A4, lưới 3 x 4) thẳng ra output stream, từng trang một.
+ * <p>
+ * QR được vẽ bằng hình chữ nhật vector (gộp các module đen liền nhau trên một hàng), không nhúng ảnh,
+ * nên file nhỏ và in sắc nét ở mọi kích thước. Chỉ nội dung của trang hiện tại và bảng offset xref
+ * được giữ trong bộ nhớ. Nhãn dùng font chuẩn Helvetica nên được chuyển về ASCII (bỏ dấu tiếng Việt).
+ * Không thread-safe; mỗi lần export dùng một instance, trong try-with-resources để giải phóng
+ * bộ nén (bộ nhớ native của zlib) kể cả khi export lỗi hoặc client ngắt kết nối giữa chừng.
+ */
+public class QrSheetPdfWriter implements AutoCloseable {
+
+    private static final float PAGE_WIDTH = 595.28f;
+    private static final float PAGE_HEIGHT = 841.89f;
+    private static final float PAGE_MARGIN = 36f;
+    private static final int COLUMNS = 3;
+    private static final int ROWS = 4;
+    private static final float CELL_WIDTH = (PAGE_WIDTH - 2 * PAGE_MARGIN) / COLUMNS;
+    private static final float CELL_HEIGHT = (PAGE_HEIGHT - 2 * PAGE_MARGIN) / ROWS;
+    private static final float LABEL_SIZE = 9f;
+    private static final float QR_SIZE = Math.min(CELL_WIDTH, CELL_HEIGHT - 2 * LABEL_SIZE - 12f) - 12f;
+    private static final int QUIET_ZONE = 2;
+    private static final int MAX_LABEL_LENGTH = 36;
+
+    // Số object cố định, ghi ở cuối file khi đã biết danh sách trang
+    private static final int CATALOG_ID = 1;
+    private static final int PAGES_ID = 2;
+    private static final int FONT_ID = 3;
+
+    private final CountingOutputStream out;
+    private final TreeMap<Integer, Long> offsets = new TreeMap<>();
+    private final List<Integer> pageIds = new ArrayList<>();
+    private final StringBuilder content = new StringBuilder();
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final byte[] deflateBuffer = new byte[8192];
+    private int nextId = FONT_ID + 1;
+    private int cellsOnPage;
+
+    public QrSheetPdfWriter(OutputStream output) throws IOException {
+        this.out = new CountingOutputStream(output);
+        try {
+            write("%PDF-1.4\n");
+            // Dòng comment nhị phân để các công cụ nhận file là binary
+            out.write(new byte[]{'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'});
+        } catch (IOException e) {
+            // Chưa vào được try-with-resources của caller
+            deflater.end();
+            throw e;
+        }
+    }
+
+    /**
+     * Thêm một ô QR (kèm tối đa hai dòng nhãn); sang trang mới khi trang hiện tại đã đầy.
+     */
+    public void add(ByteMatrix matrix, String title, String subtitle) throws IOException {
+        if (cellsOnPage == COLUMNS * ROWS) {
+            flushPage();
+        }
+
+        int column = cellsOnPage % COLUMNS;
+        int row = cellsOnPage / COLUMNS;
+        float cellLeft = PAGE_MARGIN + column * CELL_WIDTH;
+        float cellTop = PAGE_HEIGHT - PAGE_MARGIN - row * CELL_HEIGHT;
+
+        int modules = matrix.getWidth();
+        float module = QR_SIZE / (modules + 2 * QUIET_ZONE);
+        float left = cellLeft + (CELL_WIDTH - QR_SIZE) / 2 + QUIET_ZONE * module;
+        float top = cellTop - 6f - QUIET_ZONE * module;
+
+        content.append("0 g\n");
+        for (int y = 0; y < modules; y++) {
+            int x = 0;
+            while (x < modules) {
+                if (matrix.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < modules && matrix.get(x, y) == 1) {
+                    x++;
+                }
+                rect(left + start * module, top - (y + 1) * module, (x - start) * module, module);
+            }
+        }
+        content.append("f\n");
+
+        float labelTop = cellTop - 6f - QR_SIZE - LABEL_SIZE - 2f;
+        text(title, cellLeft, labelTop);
+        text(subtitle, cellLeft, labelTop - LABEL_SIZE - 3f);
+
+        cellsOnPage++;
+    }
+
+    /**
+     * Ghi trang cuối, các object cố định, bảng xref và trailer. Không đóng stream gốc.
+     */
+    public void finish() throws IOException {
+        // PDF phải có ít nhất một trang, kể cả khi không có QR nào
+        if (cellsOnPage > 0 || pageIds.isEmpty()) {
+            flushPage();
+        }
+
+        StringBuilder kids = new StringBuilder();
+        for (int pageId : pageIds) {
+            kids.append(pageId).append(" 0 R ");
+        }
+        writeObject(CATALOG_ID, "<< /Type /Catalog /Pages " + PAGES_ID + " 0 R >>");
+        writeObject(PAGES_ID, "<< /Type /Pages /Kids [" + kids + "] /Count " + pageIds.size() + " >>");
+        writeObject(FONT_ID, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+
+        long xrefOffset = out.count;
+        int size = nextId;
+        StringBuilder xref = new StringBuilder("xref\n0 ").append(size).append('\n');
+        xref.append("0000000000 65535 f \n");
+        for (int id = 1; id < size; id++) {
+            xref.append(String.format(Locale.ROOT, "%010d 00000 n \n", offsets.get(id)));
+        }
+        xref.append("trailer\n<< /Size ").append(size).append(" /Root ").append(CATALOG_ID).append(" 0 R >>\n")
+                .append("startxref\n").append(xrefOffset).append("\n%%EOF\n");
+        write(xref.toString());
+        out.flush();
+    }
+
+    /**
+     * Giải phóng bộ nén; không đóng stream gốc. Gọi nhiều lần không sao.
+     */
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    private void flushPage() throws IOException {
+        byte[] raw = content.toString().getBytes(StandardCharsets.US_ASCII);
+        content.setLength(0);
+        cellsOnPage = 0;
+
+        int contentId = nextId++;
+        int pageId = nextId++;
+
+        offsets.put(contentId, out.count);
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        // Độ dài stream chưa biết trước khi nén xong → nén vào bộ đệm của trang
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+        while (!deflater.finished()) {
+            int n = deflater.deflate(deflateBuffer);
+            compressed.write(deflateBuffer, 0, n);
+        }
+        write(contentId + " 0 obj\n<< /Length " + compressed.size() + " /Filter /FlateDecode >>\nstream\n");
+        compressed.writeTo(out);
+        write("\nendstream\nendobj\n");
+
+        writeObject(pageId, "<< /Type /Page /Parent " + PAGES_ID + " 0 R"
+                + " /MediaBox [0 0 " + format(PAGE_WIDTH) + " " + format(PAGE_HEIGHT) + "]"
+                + " /Resources << /Font << /F1 " + FONT_ID + " 0 R >> >>"
+                + " /Contents " + contentId + " 0 R >>");
+        pageIds.add(pageId);
+        out.flush();
+    }
+
+    private void rect(float x, float y, float width, float height) {
+        content.append(format(x)).append(' ').append(format(y)).append(' ')
+                .append(format(width)).append(' ').append(format(height)).append(" re\n");
+    }
+
+    private void text(String value, float cellLeft, float baseline) {
+        String label = toPdfString(value);
+        if (label.isEmpty()) return;
+        // Helvetica rộng trung bình ~0.5em → căn giữa gần đúng
+        float width = label.length() * LABEL_SIZE * 0.5f;
+        float x = cellLeft + Math.max(0f, (CELL_WIDTH - width) / 2);
+        content.append("BT /F1 ").append(format(LABEL_SIZE)).append(" Tf ")
+                .append(format(x)).append(' ').append(format(baseline)).append(" Td (")
+                .append(label).append(") Tj ET\n");
+    }
+
+    private void writeObject(int id, String body) throws IOException {
+        offsets.put(id, out.count);
+        write(id + " 0 obj\n" + body + "\nendobj\n");
+    }
+
+    private void write(String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String format(float value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    /**
+     * Bỏ dấu (đ → d), thay ký tự ngoài ASCII bằng '?', escape ký tự đặc biệt của PDF string.
+     */
+    static String toPdfString(String value) {
+        if (value == null) return "";
+        String ascii = Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('đ', 'd')
+                .replace('Đ', 'D');
+        if (ascii.length() > MAX_LABEL_LENGTH) {
+            ascii = ascii.substring(0, MAX_LABEL_LENGTH - 3) + "...";
+        }
+
+        StringBuilder escaped = new StringBuilder(ascii.length());
+        for (int i = 0; i < ascii.length(); i++) {
+            char c = ascii.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                escaped.append('?');
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
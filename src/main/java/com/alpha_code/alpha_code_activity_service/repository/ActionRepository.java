@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -41,4 +42,8 @@ public interface ActionRepository extends JpaRepository<Action, UUID> {
     Optional<Action> findByNameIgnoreCaseAndStatusNot(String name, Integer status);
 
     Page<Action> findByRobotModelIdAndStatusNot(UUID robotModelId, Integer status, Pageable pageable);
+
+    // Robot model đang có action hoạt động, dùng khi warm-up cache
+    @Query("SELECT DISTINCT a.robotModelId FROM Action a WHERE a.status <> 0")
+    List<UUID> findActiveRobotModelIds();
 }
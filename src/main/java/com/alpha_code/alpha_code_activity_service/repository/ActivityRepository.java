@@ -40,4 +40,14 @@ public interface ActivityRepository extends JpaRepository<Activity, UUID> {
 
 
     Page<Activity> findAllByAccountIdAndRobotModelIdAndStatusNot(UUID accountId, UUID robotModelId, Integer status, Pageable pageable);
+
+    // Các cặp (type, robot model) của activity đang hoạt động, dùng khi warm-up cache getByType
+    @Query("SELECT DISTINCT a.type AS type, a.robotModelId AS robotModelId FROM Activity a WHERE a.status <> 0")
+    List<TypeAndRobotModel> findActiveTypesAndRobotModels();
+
+    interface TypeAndRobotModel {
+        String getType();
+
+        UUID getRobotModelId();
+    }
 }
@@ -37,4 +37,7 @@ public interface DanceRepository extends JpaRepository<Dance, UUID> {
 
     List<Dance> findAllByRobotModelIdAndStatusNot(UUID robotModelId, Integer status);
 
+    // Robot model đang có dance hoạt động, dùng khi warm-up cache
+    @Query("SELECT DISTINCT d.robotModelId FROM Dance d WHERE d.status <> 0")
+    List<UUID> findActiveRobotModelIds();
 }
@@ -35,4 +35,8 @@ public interface ExpressionRepository extends JpaRepository<Expression, UUID> {
     Optional<Expression> getByCodeIgnoreCaseAndStatusNot(String code, Integer status);
 
     List<Expression> getByRobotModelIdAndStatusNot(UUID robotModelId, Integer status);
+
+    // Robot model đang có expression hoạt động, dùng khi warm-up cache
+    @Query("SELECT DISTINCT e.robotModelId FROM Expression e WHERE e.status <> 0")
+    List<UUID> findActiveRobotModelIds();
 }
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -28,4 +29,8 @@ public interface  ExtendedActionRepository extends JpaRepository<ExtendedAction,
     ORDER BY ea.createdDate DESC
 """)
     Page<ExtendedAction> searchExtendedActions(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // Robot model đang có extended action hoạt động, dùng khi warm-up cache
+    @Query("SELECT DISTINCT ea.robotModelId FROM ExtendedAction ea WHERE ea.status <> 0")
+    List<UUID> findActiveRobotModelIds();
 }
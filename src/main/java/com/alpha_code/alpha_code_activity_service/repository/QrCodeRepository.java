@@ -4,9 +4,14 @@ import com.alpha_code.alpha_code_activity_service.entity.QrCode;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,4 +28,33 @@ public interface QrCodeRepository extends JpaRepository<QrCode, UUID> {
 
     @Query("SELECT a FROM QrCode a WHERE a.accountId = :accountId AND a.status <> 0 ORDER BY a.createdDate DESC")
     Page<QrCode> findAllByAccountId(UUID accountId, Pageable pageable);
+
+    // Phân trang keyset cho export: trang sau bắt đầu ngay sau (createdDate, id) của bản ghi cuối trang trước,
+    // không dùng offset nên không bỏ sót/lặp khi dữ liệu thay đổi trong lúc xuất và không quét lại các trang đầu
+    @Query("SELECT a FROM QrCode a WHERE a.accountId = :accountId AND a.status <> 0 ORDER BY a.createdDate DESC, a.id DESC")
+    List<QrCode> findExportPage(@Param("accountId") UUID accountId, Pageable pageable);
+
+    @Query("SELECT a FROM QrCode a WHERE a.accountId = :accountId AND a.status <> 0 " +
+            "AND (a.createdDate < :createdDate OR (a.createdDate = :createdDate AND a.id < :id)) " +
+            "ORDER BY a.createdDate DESC, a.id DESC")
+    List<QrCode> findExportPageAfter(@Param("accountId") UUID accountId,
+                                     @Param("createdDate") LocalDateTime createdDate,
+                                     @Param("id") UUID id,
+                                     Pageable pageable);
+
+    @Query("SELECT a FROM QrCode a LEFT JOIN FETCH a.activity WHERE a.status <> 0 AND a.qrCode = :qrCode ORDER BY a.createdDate DESC")
+    List<QrCode> findActiveWithActivityByQrCode(@Param("qrCode") String qrCode);
+
+    @Query("SELECT a FROM QrCode a LEFT JOIN FETCH a.activity WHERE a.status <> 0 AND a.qrCode IN :qrCodes ORDER BY a.createdDate DESC")
+    List<QrCode> findAllActiveWithActivityByQrCodeIn(@Param("qrCodes") Collection<String> qrCodes);
+
+    @Query("SELECT a.qrCode FROM QrCode a WHERE a.status <> 0 AND a.qrCode IN :qrCodes")
+    List<String> findExistingQrCodes(@Param("qrCodes") Collection<String> qrCodes);
+
+    // Chỉ cập nhật khi ảnh hiện tại vẫn là ảnh vừa upload (QR code có thể đã sinh ảnh mới trong lúc chờ)
+    @Modifying
+    @Query("UPDATE QrCode a SET a.imageStatus = :imageStatus WHERE a.id = :id AND a.imageUrl = :imageUrl")
+    int updateImageStatus(@Param("id") UUID id,
+                          @Param("imageUrl") String imageUrl,
+                          @Param("imageStatus") Integer imageStatus);
 }
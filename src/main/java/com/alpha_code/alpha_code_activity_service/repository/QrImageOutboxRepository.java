@@ -0,0 +1,40 @@
+package com.alpha_code.alpha_code_activity_service.repository;
+
+import com.alpha_code.alpha_code_activity_service.entity.QrImageOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface QrImageOutboxRepository extends JpaRepository<QrImageOutbox, UUID> {
+
+    // lock.timeout = -2 → FOR UPDATE SKIP LOCKED: nhiều instance cùng poll không lấy trùng bản ghi
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM QrImageOutbox o WHERE o.nextAttemptAt <= :now AND o.attempts < :maxAttempts AND o.failedAt IS NULL ORDER BY o.nextAttemptAt")
+    List<QrImageOutbox> findDueForUpdate(@Param("now") LocalDateTime now,
+                                         @Param("maxAttempts") int maxAttempts,
+                                         Pageable pageable);
+
+    // Bản ghi hết lượt thử nhưng chưa được đánh dấu (dữ liệu cũ, hoặc max-attempts vừa bị giảm)
+    @Modifying
+    @Query("UPDATE QrImageOutbox o SET o.failedAt = :now WHERE o.failedAt IS NULL AND o.attempts >= :maxAttempts")
+    int markExhausted(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("DELETE FROM QrImageOutbox o WHERE o.failedAt < :before")
+    int deleteFailedBefore(@Param("before") LocalDateTime before);
+
+    long countByFailedAtIsNotNull();
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -29,5 +30,7 @@ public interface SkillRepository extends JpaRepository<Skill, UUID> {
     """)
     Page<Skill> searchSkills(@Param("searchTerm") String searchTerm, Pageable pageable);
 
-
+    // Robot model đang có skill hoạt động, dùng khi warm-up cache
+    @Query("SELECT DISTINCT s.robotModelId FROM Skill s WHERE s.status <> 0")
+    List<UUID> findActiveRobotModelIds();
 }
@@ -0,0 +1,13 @@
+package com.alpha_code.alpha_code_activity_service.service;
+
+import com.alpha_code.alpha_code_activity_service.dto.QrBulkJobDto;
+import com.alpha_code.alpha_code_activity_service.dto.QrCodeDto;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface QrCodeBulkService {
+    QrBulkJobDto startBulkCreate(List<QrCodeDto> qrCodeDtos);
+
+    QrBulkJobDto getJob(UUID jobId);
+}
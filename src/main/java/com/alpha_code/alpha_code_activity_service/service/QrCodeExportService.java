@@ -0,0 +1,11 @@
+package com.alpha_code.alpha_code_activity_service.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+
+public interface QrCodeExportService {
+    void exportZip(UUID accountId, OutputStream output) throws IOException;
+
+    void exportPdf(UUID accountId, OutputStream output) throws IOException;
+}
@@ -3,8 +3,11 @@ package com.alpha_code.alpha_code_activity_service.service;
 import com.alpha_code.alpha_code_activity_service.dto.ActivityDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
 import com.alpha_code.alpha_code_activity_service.dto.QrCodeDto;
+import com.alpha_code.alpha_code_activity_service.dto.QrScanResultDto;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.List;
 import java.util.UUID;
 
 public interface QrCodeService {
@@ -14,6 +17,12 @@ public interface QrCodeService {
 
     ActivityDto getByQrImage(MultipartFile file);
 
+    ActivityDto getByQrImageStream(InputStream body, long contentLength);
+
+    List<QrScanResultDto> getByQrImages(List<MultipartFile> files);
+
+    List<QrScanResultDto> getAllByQrImage(MultipartFile file);
+
     QrCodeDto create(QrCodeDto QrCodeDto);
 
     QrCodeDto update(UUID id, QrCodeDto QrCodeDto);
@@ -24,5 +33,7 @@ public interface QrCodeService {
     String disable(UUID id);
     QrCodeDto getByCode(String code);
 
+    ActivityDto getActivityByCode(String code);
+
     QrCodeDto changeStatus(UUID id, Integer status);
 }
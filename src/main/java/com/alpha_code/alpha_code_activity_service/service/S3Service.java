@@ -1,9 +1,16 @@
 package com.alpha_code.alpha_code_activity_service.service;
 
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
 
 public interface S3Service {
     String uploadFile(File file);
 
     String uploadBytes(byte[] data, String key, String contentType);
+
+    CompletableFuture<String> uploadBytesAsync(byte[] data, String key, String contentType);
+
+    String getObjectUrl(String key);
+
+    boolean exists(String key);
 }
@@ -1,5 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.cache.CacheIndex;
 import com.alpha_code.alpha_code_activity_service.dto.ActionDto;
 import com.alpha_code.alpha_code_activity_service.dto.ExtendedActionDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
@@ -33,10 +35,12 @@ import java.util.*;
 public class ActionServiceImpl implements ActionService {
 
     private final ActionRepository actionRepository;
+    private final CacheGenerations cacheGenerations;
+    private final CacheIndex cacheIndex;
     private final RobotServiceClient robotServiceClient;
 
     @Override
-    @Cacheable(value = "actions_list", key = "{#page, #size, #robotModelId ,#name, #code, #status, #canInterrupt, #duration}")
+    @Cacheable(value = "actions_list", key = "{@cacheGenerations.version('actions_list', 'model', #robotModelId), #page, #size, #robotModelId ,#name, #code, #status, #canInterrupt, #duration}", sync = true)
     public PagedResult<ActionDto> searchActions(int page, int size, UUID robotModelId, String name, String code, Integer status, Boolean canInterrupt, Integer duration) {
         Pageable pageable = PageRequest.of(page - 1,size);
         Page<Action> actions = actionRepository.searchActions(robotModelId, name, code, status, canInterrupt, duration, pageable);
@@ -79,31 +83,32 @@ public class ActionServiceImpl implements ActionService {
 
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "actions", key = "#id")
+    @Cacheable(value = "actions", key = "#id", sync = true)
     public ActionDto getActionById(UUID id) {
-        Action action = actionRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Action not found with id: " + id));
-        return ActionMapper.toDto(action);
+        return loadById(id);
     }
 
+    // name/code → id qua cache "actions_index"; bản ghi dùng chung entry theo id với getActionById
     @Override
-    @Cacheable(value = "actions", key = "#name")
     public ActionDto getActionByName(String name) {
-        Action action = actionRepository.findByNameIgnoreCaseAndStatusNot(name, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Action not found with name: " + name));
-        return ActionMapper.toDto(action);
+        return cacheIndex.get("actions", "name", name, () -> {
+            Action action = actionRepository.findByNameIgnoreCaseAndStatusNot(name, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Action not found with name: " + name));
+            return ActionMapper.toDto(action);
+        }, ActionDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "actions", key = "#code")
     public ActionDto getActionByCode(String code) {
-        Action action = actionRepository.findByCodeIgnoreCaseAndStatusNot(code, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Action not found with code: " + code));
-        return ActionMapper.toDto(action);
+        return cacheIndex.get("actions", "code", code, () -> {
+            Action action = actionRepository.findByCodeIgnoreCaseAndStatusNot(code, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Action not found with code: " + code));
+            return ActionMapper.toDto(action);
+        }, ActionDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "actions", key = "#robotModelId")
+    @Cacheable(value = "actions_by_model", key = "{@cacheGenerations.version('actions_by_model', 'model', #robotModelId), #robotModelId, #page, #size}", sync = true)
     public PagedResult<ActionDto> getActionByRobotModelId(UUID robotModelId, int page, int size) {
         Pageable pageable = PageRequest.of(page - 1,size);
         Page<Action>  actions = actionRepository.findByRobotModelIdAndStatusNot(robotModelId, 0, pageable);
@@ -116,7 +121,6 @@ public class ActionServiceImpl implements ActionService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"actions_list"}, allEntries = true)
     public ActionDto createAction(ActionDto actionDto) {
 
         var existed = actionRepository.findByCodeIgnoreCaseAndStatusNot(actionDto.getCode(), 0);
@@ -133,16 +137,19 @@ public class ActionServiceImpl implements ActionService {
         action.setCreatedDate(LocalDateTime.now());
         action.setLastUpdated(LocalDateTime.now());
         Action savedAction = actionRepository.save(action);
+        bumpListGeneration(savedAction);
         return ActionMapper.toDto(savedAction);
     }
 
     @Override
     @Transactional
     @CachePut(value = "actions", key = "#id")
-    @CacheEvict(value = {"actions_list"}, allEntries = true)
     public ActionDto updateAction(UUID id, ActionDto actionDto) {
         Action existingAction = actionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy hành động với id: " + id));
+        // Danh sách theo robot model cũ (nếu đổi) và index theo tên cũ cũng phải làm mới
+        bumpListGeneration(existingAction);
+        evictIndex(existingAction);
 
         existingAction.setName(actionDto.getName());
         existingAction.setDescription(actionDto.getDescription());
@@ -155,16 +162,20 @@ public class ActionServiceImpl implements ActionService {
         existingAction.setLastUpdated(LocalDateTime.now());
 
         Action updatedAction = actionRepository.save(existingAction);
+        bumpListGeneration(existingAction);
+        evictIndex(existingAction);
         return ActionMapper.toDto(updatedAction);
     }
 
     @Override
     @Transactional
     @CachePut(value = "actions", key = "#id")
-    @CacheEvict(value = {"actions_list"}, allEntries = true)
     public ActionDto patchUpdateAction(UUID id, ActionDto actionDto) {
         Action existingAction = actionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy hành động với id: " + id));
+        // Danh sách theo robot model cũ (nếu đổi) và index theo tên cũ cũng phải làm mới
+        bumpListGeneration(existingAction);
+        evictIndex(existingAction);
 
         if (actionDto.getName() != null) {
             existingAction.setName(actionDto.getName());
@@ -193,6 +204,8 @@ public class ActionServiceImpl implements ActionService {
         existingAction.setLastUpdated(LocalDateTime.now());
 
         Action updatedAction = actionRepository.save(existingAction);
+        bumpListGeneration(existingAction);
+        evictIndex(existingAction);
         return ActionMapper.toDto(updatedAction);
 
     }
@@ -200,19 +213,20 @@ public class ActionServiceImpl implements ActionService {
     @Override
     @Transactional
     @CachePut(value = "actions", key = "#id")
-    @CacheEvict(value = {"actions_list"}, allEntries = true)
     public ActionDto changeActionStatus(UUID id, Integer status) {
         Action existingAction = actionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy hành động với id: " + id));
         existingAction.setStatus(status);
         existingAction.setLastUpdated(LocalDateTime.now());
         Action updatedAction = actionRepository.save(existingAction);
+        bumpListGeneration(existingAction);
+        evictIndex(existingAction);
         return ActionMapper.toDto(updatedAction);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"actions", "actions_list"}, key = "#id", allEntries = true)
+    @CacheEvict(value = "actions", key = "#id")
     public String deleteAction(UUID id) {
         Action existingAction = actionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy hành động với id: " + id));
@@ -220,6 +234,23 @@ public class ActionServiceImpl implements ActionService {
         existingAction.setStatus(0);
         existingAction.setLastUpdated(LocalDateTime.now());
         actionRepository.save(existingAction);
+        bumpListGeneration(existingAction);
+        evictIndex(existingAction);
         return "Hành động đã được xóa thành công";
     }
+
+    private ActionDto loadById(UUID id) {
+        Action action = actionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Action not found with id: " + id));
+        return ActionMapper.toDto(action);
+    }
+
+    private void bumpListGeneration(Action action) {
+        cacheGenerations.bump("actions_list", "model", action.getRobotModelId());
+        cacheGenerations.bump("actions_by_model", "model", action.getRobotModelId());
+    }
+
+    private void evictIndex(Action action) {
+        cacheIndex.evict("actions", "name", action.getName(), "code", action.getCode());
+    }
 }
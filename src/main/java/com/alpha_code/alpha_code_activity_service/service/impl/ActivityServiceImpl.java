@@ -1,5 +1,6 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
 import com.alpha_code.alpha_code_activity_service.dto.ActivityDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
 import com.alpha_code.alpha_code_activity_service.entity.Activity;
@@ -27,9 +28,10 @@ import java.util.UUID;
 public class ActivityServiceImpl implements ActivityService {
 
     private final ActivityRepository repository;
+    private final CacheGenerations cacheGenerations;
 
     @Override
-    @Cacheable(value = "activities_list", key = "{#page, #size, #keyword, #accountId, #modelId, #status}")
+    @Cacheable(value = "activities_list", key = "{@cacheGenerations.version('activities_list', 'account', #accountId, 'model', #modelId), #page, #size, #keyword, #accountId, #modelId, #status}", sync = true)
     public PagedResult<ActivityDto> getAll(int page, int size, String keyword, UUID accountId, UUID modelId, Integer status) {
         Pageable pageable = PageRequest.of(page - 1, size);
         Page<Activity> pageResult;
@@ -48,7 +50,7 @@ public class ActivityServiceImpl implements ActivityService {
     }
 
     @Override
-    @Cacheable(value = "account_activities_list", key = "{#accountId, #modelId, #page, #size}")
+    @Cacheable(value = "account_activities_list", key = "{@cacheGenerations.version('account_activities_list', 'account', #accountId, 'model', #modelId), #accountId, #modelId, #page, #size}", sync = true)
     public PagedResult<ActivityDto> getByAccountId(UUID accountId, UUID modelId, int page, int size) {
         Pageable pageable = PageRequest.of(page - 1, size);
         Page<Activity> pageResult;
@@ -58,7 +60,7 @@ public class ActivityServiceImpl implements ActivityService {
     }
 
     @Override
-    @Cacheable(value = "activities_list", key = "{#type, #modelId}")
+    @Cacheable(value = "activities_by_type", key = "{@cacheGenerations.version('activities_by_type', 'model', #modelId), #type, #modelId}", sync = true)
     public List<ActivityDto> getByType(String type, UUID modelId) {
         return repository.findAllByTypeIgnoreCaseAndRobotModelIdAndStatusNot(type, modelId, 0)
                 .stream().map(ActivityMapper::toDto).toList();
@@ -66,7 +68,6 @@ public class ActivityServiceImpl implements ActivityService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"activities_list", "account_activities_list"}, allEntries = true)
     public ActivityDto createActivity(ActivityDto dto) {
 
         var existed = repository.findByNameIgnoreCaseAndRobotModelIdAndStatusNot(dto.getName(), dto.getRobotModelId(),0);
@@ -79,16 +80,19 @@ public class ActivityServiceImpl implements ActivityService {
         activity.setCreatedDate(LocalDateTime.now());
 
         Activity savedActivity = repository.save(activity);
+        bumpListGenerations(savedActivity);
         return ActivityMapper.toDto(savedActivity);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"activities_list", "account_activities_list"}, allEntries = true)
+    @CacheEvict(value = "qr_code_activities", allEntries = true)
     @CachePut(value = "activities", key = "#id")
     public ActivityDto updateActivity(UUID id, ActivityDto dto) {
         var activity = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Activity not found"));
+        // Danh sách chứa activity theo account/model cũ (nếu đổi) cũng phải làm mới
+        bumpListGenerations(activity);
 
         var existed = repository.findByNameIgnoreCaseAndRobotModelIdAndStatusNot(dto.getName(), dto.getRobotModelId(),0);
         if (existed.isPresent() && existed.get().getId() != activity.getId()) {
@@ -104,16 +108,19 @@ public class ActivityServiceImpl implements ActivityService {
         activity.setLastUpdated(LocalDateTime.now());
 
         Activity savedActivity = repository.save(activity);
+        bumpListGenerations(savedActivity);
         return ActivityMapper.toDto(savedActivity);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"activities_list", "account_activities_list"}, allEntries = true)
+    @CacheEvict(value = "qr_code_activities", allEntries = true)
     @CachePut(value = "activities", key = "#id")
     public ActivityDto patchUpdateActivity(UUID id, ActivityDto dto) {
         var activity = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Activity not found"));
+        // Danh sách chứa activity theo account/model cũ (nếu đổi) cũng phải làm mới
+        bumpListGenerations(activity);
 
         var existed = repository.findByNameIgnoreCaseAndRobotModelIdAndStatusNot(dto.getName(), dto.getRobotModelId(),0);
         if (existed.isPresent() && existed.get().getId() != activity.getId()) {
@@ -143,12 +150,13 @@ public class ActivityServiceImpl implements ActivityService {
         activity.setLastUpdated(LocalDateTime.now());
 
         Activity savedActivity = repository.save(activity);
+        bumpListGenerations(savedActivity);
         return ActivityMapper.toDto(savedActivity);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"activities_list", "account_activities_list"}, allEntries = true)
+    @CacheEvict(value = "qr_code_activities", allEntries = true)
     @CachePut(value = "activities", key = "#id")
     public ActivityDto changeActivityStatus(UUID id, Integer status) {
         var activity = repository.findById(id)
@@ -158,15 +166,17 @@ public class ActivityServiceImpl implements ActivityService {
         activity.setLastUpdated(LocalDateTime.now());
 
         Activity savedActivity = repository.save(activity);
+        bumpListGenerations(savedActivity);
         return ActivityMapper.toDto(savedActivity);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"activities_list", "activities", "account_activities_list"}, allEntries = true)
+    @CacheEvict(value = {"activities", "qr_code_activities"}, allEntries = true)
     public String deleteActivity(UUID id) {
         var activity = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Activity not found"));
+        bumpListGenerations(activity);
 
         activity.setStatus(0);
         activity.setLastUpdated(LocalDateTime.now());
@@ -175,4 +185,10 @@ public class ActivityServiceImpl implements ActivityService {
 
         return "Activity deleted successfully!";
     }
+
+    private void bumpListGenerations(Activity activity) {
+        cacheGenerations.bump("activities_list", "account", activity.getAccountId(), "model", activity.getRobotModelId());
+        cacheGenerations.bump("account_activities_list", "account", activity.getAccountId(), "model", activity.getRobotModelId());
+        cacheGenerations.bump("activities_by_type", "model", activity.getRobotModelId());
+    }
 }
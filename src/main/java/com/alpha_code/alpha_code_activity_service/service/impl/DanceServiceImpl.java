@@ -1,5 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.cache.CacheIndex;
 import com.alpha_code.alpha_code_activity_service.dto.DanceDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
 import com.alpha_code.alpha_code_activity_service.entity.Dance;
@@ -30,10 +32,12 @@ import java.util.*;
 public class DanceServiceImpl implements DanceService {
 
     private final DanceRepository repository;
+    private final CacheGenerations cacheGenerations;
+    private final CacheIndex cacheIndex;
     private final RobotServiceClient robotServiceClient;
 
     @Override
-    @Cacheable(value = "dances_list", key = "{#page, #size, #name, #code, #status, #robotModelId}")
+    @Cacheable(value = "dances_list", key = "{@cacheGenerations.version('dances_list', 'model', #robotModelId), #page, #size, #name, #code, #status, #robotModelId}", sync = true)
     public PagedResult<DanceDto> getAll(int page, int size, String name, String code, Integer status, UUID robotModelId) {
         Pageable pageable = PageRequest.of(page - 1, size);
         Page<Dance> pageResult;
@@ -77,34 +81,32 @@ public class DanceServiceImpl implements DanceService {
     }
 
     @Override
-    @Cacheable(value = "dances", key = "#id")
+    @Cacheable(value = "dances", key = "#id", sync = true)
     public DanceDto getById(UUID id) {
-        var dance = repository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Dance not found"));
-
-        return DanceMapper.toDto(dance);
+        return loadById(id);
     }
 
+    // code/name → id qua cache "dances_index"; bản ghi dùng chung entry theo id với getById
     @Override
-    @Cacheable(value = "dances", key = "#code")
     public DanceDto getDanceByCode(String code) {
-        var dance = repository.getDanceByCodeIgnoreCaseAndStatusNot(code, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Dance not found"));
-
-        return DanceMapper.toDto(dance);
+        return cacheIndex.get("dances", "code", code, () -> {
+            var dance = repository.getDanceByCodeIgnoreCaseAndStatusNot(code, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Dance not found"));
+            return DanceMapper.toDto(dance);
+        }, DanceDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "dances", key = "#name")
     public DanceDto getDanceByName(String name) {
-        var dance = repository.getDanceByNameIgnoreCaseAndStatusNot(name, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Dance not found"));
-
-        return DanceMapper.toDto(dance);
+        return cacheIndex.get("dances", "name", name, () -> {
+            var dance = repository.getDanceByNameIgnoreCaseAndStatusNot(name, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Dance not found"));
+            return DanceMapper.toDto(dance);
+        }, DanceDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "dances", key = "#robotModelId")
+    @Cacheable(value = "dances_by_model", key = "{@cacheGenerations.version('dances_by_model', 'model', #robotModelId), #robotModelId}", sync = true)
     public List<DanceDto> getAllByRobotModelId(UUID robotModelId) {
         return repository.findAllByRobotModelIdAndStatusNot(robotModelId, 0)
                 .stream()
@@ -114,7 +116,6 @@ public class DanceServiceImpl implements DanceService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "dances_list", allEntries = true)
     public DanceDto create(DanceDto dto) {
 
         var existed = repository.getDanceByCodeIgnoreCaseAndStatusNot(dto.getCode(), 0);
@@ -126,12 +127,12 @@ public class DanceServiceImpl implements DanceService {
         dance.setCreatedDate(LocalDateTime.now());
 
         Dance savedDance = repository.save(dance);
+        bumpListGeneration(dance);
         return DanceMapper.toDto(savedDance);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "dances_list", allEntries = true)
     @CachePut(value = "dances", key = "#id")
     public DanceDto update(UUID id, DanceDto dto) {
         var existed = repository.findById(id)
@@ -141,6 +142,8 @@ public class DanceServiceImpl implements DanceService {
         if (valid.isPresent() && valid.get().getId() != id) {
             throw new ResourceNotFoundException("Dance code already exists");
         }
+        // Index theo code/tên cũ cũng phải làm mới
+        evictIndex(existed);
 
         existed.setName(dto.getName());
         existed.setDuration(dto.getDuration());
@@ -152,13 +155,14 @@ public class DanceServiceImpl implements DanceService {
         existed.setLastUpdated(LocalDateTime.now());
 
         Dance savedDance = repository.save(existed);
+        bumpListGeneration(existed);
+        evictIndex(existed);
         return  DanceMapper.toDto(savedDance);
 
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "dances_list", allEntries = true)
     @CachePut(value = "dances", key = "#id")
     public DanceDto patchUpdate(UUID id, DanceDto dto) {
         var existed = repository.findById(id)
@@ -168,6 +172,8 @@ public class DanceServiceImpl implements DanceService {
         if (valid.isPresent() && valid.get().getId() != id) {
             throw new ResourceNotFoundException("Dance code already exists");
         }
+        // Index theo code/tên cũ cũng phải làm mới
+        evictIndex(existed);
 
         if (dto.getName() != null){
             existed.setName(dto.getName());
@@ -197,24 +203,27 @@ public class DanceServiceImpl implements DanceService {
         existed.setLastUpdated(LocalDateTime.now());
 
         Dance savedDance = repository.save(existed);
+        bumpListGeneration(existed);
+        evictIndex(existed);
         return  DanceMapper.toDto(savedDance);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"dances_list", "dances"}, allEntries = true)
+    @CacheEvict(value = "dances", key = "#id")
     public String delete(UUID id) {
         var existed = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Dance not found"));
 
         existed.setStatus(0);
         repository.save(existed);
+        bumpListGeneration(existed);
+        evictIndex(existed);
         return "Delete dance successfully";
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"dances_list"}, allEntries = true)
     @CachePut(value = "dances", key = "#id")
     public DanceDto changeStatus(UUID id, Integer status) {
         var existed = repository.findById(id)
@@ -224,6 +233,24 @@ public class DanceServiceImpl implements DanceService {
         existed.setLastUpdated(LocalDateTime.now());
 
         Dance savedDance = repository.save(existed);
+        bumpListGeneration(existed);
+        evictIndex(existed);
         return DanceMapper.toDto(savedDance);
     }
+
+    private DanceDto loadById(UUID id) {
+        var dance = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Dance not found"));
+
+        return DanceMapper.toDto(dance);
+    }
+
+    private void bumpListGeneration(Dance dance) {
+        cacheGenerations.bump("dances_list", "model", dance.getRobotModelId());
+        cacheGenerations.bump("dances_by_model", "model", dance.getRobotModelId());
+    }
+
+    private void evictIndex(Dance dance) {
+        cacheIndex.evict("dances", "name", dance.getName(), "code", dance.getCode());
+    }
 }
@@ -1,5 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.cache.CacheIndex;
 import com.alpha_code.alpha_code_activity_service.dto.DanceDto;
 import com.alpha_code.alpha_code_activity_service.dto.ExpressionDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
@@ -34,10 +36,12 @@ import java.util.stream.Collectors;
 public class ExpressionServiceImpl implements ExpressionService {
 
     private final ExpressionRepository repository;
+    private final CacheGenerations cacheGenerations;
+    private final CacheIndex cacheIndex;
     private final RobotServiceClient robotServiceClient;
 
     @Override
-    @Cacheable(value = "expressions_list", key = "{#page, #size, #name, #code, #status, #robotModelId}")
+    @Cacheable(value = "expressions_list", key = "{@cacheGenerations.version('expressions_list', 'model', #robotModelId), #page, #size, #name, #code, #status, #robotModelId}", sync = true)
     public PagedResult<ExpressionDto> getAll(int page, int size, String name, String code, Integer status, UUID robotModelId) {
         Pageable pageable = PageRequest.of(page - 1, size);
         Page<Expression> pageResult;
@@ -81,17 +85,13 @@ public class ExpressionServiceImpl implements ExpressionService {
     }
 
     @Override
-    @Cacheable(value = "expressions", key = "#id")
+    @Cacheable(value = "expressions", key = "#id", sync = true)
     public ExpressionDto getById(UUID id) {
-        var expression = repository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Expression not found"));
-
-        return ExpressionMapper.toDto(expression);
+        return loadById(id);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "expressions_list", allEntries = true)
     public ExpressionDto create(ExpressionDto dto) {
         var valid = repository.getByNameIgnoreCaseAndStatusNot(dto.getName(), 0);
         if (valid.isPresent()) {
@@ -106,12 +106,12 @@ public class ExpressionServiceImpl implements ExpressionService {
         expression.setCreatedDate(LocalDateTime.now());
 
         var savedExpression = repository.save(expression);
+        bumpListGeneration(expression);
         return ExpressionMapper.toDto(savedExpression);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "expressions_list", allEntries = true)
     @CachePut(value = "expressions", key = "#id")
     public ExpressionDto update(UUID id, ExpressionDto dto) {
         var valid = repository.getByNameIgnoreCaseAndStatusNot(dto.getName(), 0);
@@ -125,6 +125,10 @@ public class ExpressionServiceImpl implements ExpressionService {
 
         var expression = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Expression not found"));
+        // Danh sách theo robot model cũ (nếu đổi) và index theo code/tên cũ cũng phải làm mới
+        bumpListGeneration(expression);
+        evictIndex(expression);
+
         expression.setName(dto.getName());
         expression.setCode(dto.getCode());
         expression.setImageUrl(dto.getImageUrl());
@@ -133,12 +137,13 @@ public class ExpressionServiceImpl implements ExpressionService {
         expression.setLastUpdated(LocalDateTime.now());
 
         var savedExpression = repository.save(expression);
+        bumpListGeneration(expression);
+        evictIndex(expression);
         return ExpressionMapper.toDto(savedExpression);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "expressions_list", allEntries = true)
     @CachePut(value = "expressions", key = "#id")
     public ExpressionDto patch(UUID id, ExpressionDto dto) {
         var valid = repository.getByNameIgnoreCaseAndStatusNot(dto.getName(), 0);
@@ -152,6 +157,9 @@ public class ExpressionServiceImpl implements ExpressionService {
 
         var expression = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Expression not found"));
+        // Danh sách theo robot model cũ (nếu đổi) và index theo code/tên cũ cũng phải làm mới
+        bumpListGeneration(expression);
+        evictIndex(expression);
 
         if (dto.getName() != null) {
             expression.setName(dto.getName());
@@ -172,12 +180,14 @@ public class ExpressionServiceImpl implements ExpressionService {
         expression.setLastUpdated(LocalDateTime.now());
 
         var savedExpression = repository.save(expression);
+        bumpListGeneration(expression);
+        evictIndex(expression);
         return ExpressionMapper.toDto(savedExpression);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"expressions_list", "expressions"}, allEntries = true)
+    @CacheEvict(value = "expressions", key = "#id")
     public String delete(UUID id) {
         var expression = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Expression not found"));
@@ -186,29 +196,32 @@ public class ExpressionServiceImpl implements ExpressionService {
         expression.setLastUpdated(LocalDateTime.now());
 
         repository.save(expression);
+        bumpListGeneration(expression);
+        evictIndex(expression);
         return "Expression deleted successfully";
     }
 
+    // name/code → id qua cache "expressions_index"; bản ghi dùng chung entry theo id với getById
     @Override
-    @Cacheable(value = "expressions", key = "#name")
     public ExpressionDto getByName(String name) {
-        var expression = repository.getByNameIgnoreCaseAndStatusNot(name, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Expression not found"));
-
-        return ExpressionMapper.toDto(expression);
+        return cacheIndex.get("expressions", "name", name, () -> {
+            var expression = repository.getByNameIgnoreCaseAndStatusNot(name, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Expression not found"));
+            return ExpressionMapper.toDto(expression);
+        }, ExpressionDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "expressions", key = "#code")
     public ExpressionDto getByCode(String code) {
-        var expression = repository.getByCodeIgnoreCaseAndStatusNot(code, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Expression not found"));
-
-        return ExpressionMapper.toDto(expression);
+        return cacheIndex.get("expressions", "code", code, () -> {
+            var expression = repository.getByCodeIgnoreCaseAndStatusNot(code, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Expression not found"));
+            return ExpressionMapper.toDto(expression);
+        }, ExpressionDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "expressions", key = "#robotModelId")
+    @Cacheable(value = "expressions_by_model", key = "{@cacheGenerations.version('expressions_by_model', 'model', #robotModelId), #robotModelId}", sync = true)
     public List<ExpressionDto> getByRobotModelId(UUID robotModelId) {
         return repository.getByRobotModelIdAndStatusNot(robotModelId,0)
                 .stream()
@@ -218,7 +231,6 @@ public class ExpressionServiceImpl implements ExpressionService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"expressions_list"}, allEntries = true)
     @CachePut(value = "expressions", key = "#id")
     public ExpressionDto changeStatus(UUID id, Integer status) {
         var expression = repository.findById(id)
@@ -228,6 +240,24 @@ public class ExpressionServiceImpl implements ExpressionService {
         expression.setLastUpdated(LocalDateTime.now());
 
         repository.save(expression);
+        bumpListGeneration(expression);
+        evictIndex(expression);
         return ExpressionMapper.toDto(expression);
     }
+
+    private ExpressionDto loadById(UUID id) {
+        var expression = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Expression not found"));
+
+        return ExpressionMapper.toDto(expression);
+    }
+
+    private void bumpListGeneration(Expression expression) {
+        cacheGenerations.bump("expressions_list", "model", expression.getRobotModelId());
+        cacheGenerations.bump("expressions_by_model", "model", expression.getRobotModelId());
+    }
+
+    private void evictIndex(Expression expression) {
+        cacheIndex.evict("expressions", "name", expression.getName(), "code", expression.getCode());
+    }
 }
@@ -1,5 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.cache.CacheIndex;
 import com.alpha_code.alpha_code_activity_service.dto.ExtendedActionDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
 import com.alpha_code.alpha_code_activity_service.entity.ExtendedAction;
@@ -14,6 +16,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -30,6 +33,8 @@ import java.util.*;
 @Slf4j
 public class ExtendedActionServiceImpl implements ExtendedActionService {
     private final ExtendedActionRepository extendedActionRepository;
+    private final CacheGenerations cacheGenerations;
+    private final CacheIndex cacheIndex;
     private final RobotServiceClient robotServiceClient;
 
 
@@ -84,31 +89,32 @@ public class ExtendedActionServiceImpl implements ExtendedActionService {
 
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "extended_actions", key = "#id")
+    @Cacheable(value = "extended_actions", key = "#id", sync = true)
     public ExtendedActionDto getExtendedActionById(UUID id) {
-        ExtendedAction extendedAction = extendedActionRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy Extended Action với id: " + id));
-        return ExtendedActionMapper.toDto(extendedAction);
+        return loadById(id);
     }
 
+    // name/code → id qua cache "extended_actions_index"; bản ghi dùng chung entry theo id với getExtendedActionById
     @Override
-    @Cacheable(value = "extended_actions", key = "#name")
     public ExtendedActionDto getExtendedActionByName(String name) {
-        ExtendedAction extendedAction = extendedActionRepository.findByNameIgnoreCaseAndStatusNot(name, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy Extended Action với name: " + name));
-        return ExtendedActionMapper.toDto(extendedAction);
+        return cacheIndex.get("extended_actions", "name", name, () -> {
+            ExtendedAction extendedAction = extendedActionRepository.findByNameIgnoreCaseAndStatusNot(name, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy Extended Action với name: " + name));
+            return ExtendedActionMapper.toDto(extendedAction);
+        }, ExtendedActionDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "extended_actions", key = "#code")
     public ExtendedActionDto getExtendedActionByCode(String code) {
-        ExtendedAction extendedAction = extendedActionRepository.findByCodeIgnoreCaseAndStatusNot(code, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy Extended Action với code: " + code));
-        return ExtendedActionMapper.toDto(extendedAction);
+        return cacheIndex.get("extended_actions", "code", code, () -> {
+            ExtendedAction extendedAction = extendedActionRepository.findByCodeIgnoreCaseAndStatusNot(code, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy Extended Action với code: " + code));
+            return ExtendedActionMapper.toDto(extendedAction);
+        }, ExtendedActionDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "extended_actions", key = "{#robotModelId, #page, #size}")
+    @Cacheable(value = "extended_actions_by_model", key = "{@cacheGenerations.version('extended_actions_by_model', 'model', #robotModelId), #robotModelId, #page, #size}", sync = true)
     public PagedResult<ExtendedActionDto> getExtendedActionByRobotModelId(UUID robotModelId, int page, int size) {
         Pageable pageable = PageRequest.of(Math.max(page - 1, 0), size);
         Page<ExtendedAction> pageResult =
@@ -141,6 +147,7 @@ public class ExtendedActionServiceImpl implements ExtendedActionService {
         extendedAction.setLastUpdated(null);
         extendedAction.setStatus(1); // Mặc định là active
         ExtendedAction savedExtendedAction = extendedActionRepository.save(extendedAction);
+        bumpListGeneration(extendedAction);
         return ExtendedActionMapper.toDto(savedExtendedAction);
     }
 
@@ -151,6 +158,9 @@ public class ExtendedActionServiceImpl implements ExtendedActionService {
     public ExtendedActionDto updateExtendedAction(UUID id, ExtendedActionDto extendedActionDto) {
         ExtendedAction existingExtendedAction = extendedActionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy extended action với id: " + id));
+        // Danh sách theo robot model cũ (nếu đổi) và index theo code/tên cũ cũng phải làm mới
+        bumpListGeneration(existingExtendedAction);
+        evictIndex(existingExtendedAction);
 
         existingExtendedAction.setName(extendedActionDto.getName());
         existingExtendedAction.setCode(extendedActionDto.getCode());
@@ -160,6 +170,8 @@ public class ExtendedActionServiceImpl implements ExtendedActionService {
         existingExtendedAction.setRobotModelId(extendedActionDto.getRobotModelId());
 
         ExtendedAction updatedExtendedAction = extendedActionRepository.save(existingExtendedAction);
+        bumpListGeneration(existingExtendedAction);
+        evictIndex(existingExtendedAction);
         return ExtendedActionMapper.toDto(updatedExtendedAction);
     }
 
@@ -170,6 +182,9 @@ public class ExtendedActionServiceImpl implements ExtendedActionService {
     public ExtendedActionDto patchUpdateExtendedAction(UUID id, ExtendedActionDto extendedActionDto) {
         ExtendedAction existingExtendedAction = extendedActionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy extended action với id: " + id));
+        // Danh sách theo robot model cũ (nếu đổi) và index theo code/tên cũ cũng phải làm mới
+        bumpListGeneration(existingExtendedAction);
+        evictIndex(existingExtendedAction);
 
         if (extendedActionDto.getName() != null) {
             existingExtendedAction.setName(extendedActionDto.getName());
@@ -194,6 +209,8 @@ public class ExtendedActionServiceImpl implements ExtendedActionService {
         existingExtendedAction.setLastUpdated(LocalDateTime.now());
 
         ExtendedAction updatedExtendedAction = extendedActionRepository.save(existingExtendedAction);
+        bumpListGeneration(existingExtendedAction);
+        evictIndex(existingExtendedAction);
         return ExtendedActionMapper.toDto(updatedExtendedAction);
 
     }
@@ -208,12 +225,17 @@ public class ExtendedActionServiceImpl implements ExtendedActionService {
         existingExtendedAction.setStatus(status);
         existingExtendedAction.setLastUpdated(LocalDateTime.now());
         ExtendedAction updatedExtendedAction = extendedActionRepository.save(existingExtendedAction);
+        bumpListGeneration(existingExtendedAction);
+        evictIndex(existingExtendedAction);
         return ExtendedActionMapper.toDto(updatedExtendedAction);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"extended_actions", "extended_actions_list"}, key = "#id", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "extended_actions", key = "#id"),
+            @CacheEvict(value = "extended_actions_list", allEntries = true)
+    })
     public String deleteExtendedAction(UUID id) {
         ExtendedAction existingExtendedAction = extendedActionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy extend action với id: " + id));
@@ -221,6 +243,23 @@ public class ExtendedActionServiceImpl implements ExtendedActionService {
         existingExtendedAction.setStatus(0);
         existingExtendedAction.setLastUpdated(LocalDateTime.now());
         extendedActionRepository.save(existingExtendedAction);
+        bumpListGeneration(existingExtendedAction);
+        evictIndex(existingExtendedAction);
         return "Extended Action deleted successfully";
     }
+
+    private ExtendedActionDto loadById(UUID id) {
+        ExtendedAction extendedAction = extendedActionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy Extended Action với id: " + id));
+        return ExtendedActionMapper.toDto(extendedAction);
+    }
+
+    // extended_actions_list không có robot model trong key nên vẫn evict allEntries; danh sách theo model dùng generation
+    private void bumpListGeneration(ExtendedAction extendedAction) {
+        cacheGenerations.bump("extended_actions_by_model", "model", extendedAction.getRobotModelId());
+    }
+
+    private void evictIndex(ExtendedAction extendedAction) {
+        cacheIndex.evict("extended_actions", "name", extendedAction.getName(), "code", extendedAction.getCode());
+    }
 }
@@ -0,0 +1,380 @@
+package com.alpha_code.alpha_code_activity_service.service.impl;
+
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.dto.QrBulkItemResultDto;
+import com.alpha_code.alpha_code_activity_service.dto.QrBulkJobDto;
+import com.alpha_code.alpha_code_activity_service.dto.QrCodeDto;
+import com.alpha_code.alpha_code_activity_service.entity.QrCode;
+import com.alpha_code.alpha_code_activity_service.enums.QrBulkJobStatusEnum;
+import com.alpha_code.alpha_code_activity_service.enums.QrImageStatusEnum;
+import com.alpha_code.alpha_code_activity_service.exception.ResourceNotFoundException;
+import com.alpha_code.alpha_code_activity_service.exception.ServiceUnavailableException;
+import com.alpha_code.alpha_code_activity_service.mapper.QrCodeMapper;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageRenderer;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageStore;
+import com.alpha_code.alpha_code_activity_service.repository.QrCodeRepository;
+import com.alpha_code.alpha_code_activity_service.service.QrCodeBulkService;
+import com.alpha_code.alpha_code_activity_service.service.S3Service;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.zxing.WriterException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tạo hàng loạt QR code (onboard trường học) dưới dạng job chạy nền.
+ * <p>
+ * Kiểm tra trùng mã bằng một query, sau đó xử lý theo từng chunk: render ảnh song song,
+ * upload S3 đồng thời (mỗi ảnh upload ngay khi render xong) và insert cả chunk bằng JDBC batch
+ * trong một transaction ngắn. Tiến độ job được lưu trong Redis để client poll theo jobId.
+ * <p>
+ * Job không sống sót qua restart: mỗi pod giữ một khoá heartbeat trong Redis (TTL {@code qr.bulk.heartbeat-lease})
+ * và job ghi lại pod đang xử lý nó. Job PENDING/RUNNING mà heartbeat của pod đó đã hết hạn được trả về FAILED
+ * ("bị gián đoạn"). Không có chống gửi trùng: gửi lại danh sách sau khi job bị gián đoạn thì các chunk đã lưu
+ * (mỗi chunk lưu trọn vẹn hoặc không lưu gì) được báo "đã tồn tại", client coi các mã đó là đã tạo.
+ */
+@Service
+@Slf4j
+public class QrCodeBulkServiceImpl implements QrCodeBulkService {
+
+    private static final String JOB_KEY_PREFIX = "qr_bulk_job:";
+    private static final String OWNER_KEY_SUFFIX = ":owner";
+    private static final String WORKER_KEY_PREFIX = "qr_bulk_worker:";
+
+    private final QrCodeRepository repository;
+    private final QrImageRenderer qrImageRenderer;
+    private final QrImageStore qrImageStore;
+    private final S3Service s3Service;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheGenerations cacheGenerations;
+
+    private final int maxItems;
+    private final int chunkSize;
+    private final Duration jobTtl;
+    private final Duration heartbeatLease;
+    private final String workerId = UUID.randomUUID().toString();
+
+    private final ThreadPoolExecutor jobExecutor;
+    private final ExecutorService renderExecutor;
+
+    public QrCodeBulkServiceImpl(QrCodeRepository repository,
+                                 QrImageRenderer qrImageRenderer,
+                                 QrImageStore qrImageStore,
+                                 S3Service s3Service,
+                                 StringRedisTemplate redisTemplate,
+                                 ObjectMapper objectMapper,
+                                 TransactionTemplate transactionTemplate,
+                                 CacheGenerations cacheGenerations,
+                                 @Value("${qr.bulk.max-items:1000}") int maxItems,
+                                 @Value("${qr.bulk.chunk-size:100}") int chunkSize,
+                                 @Value("${qr.bulk.job-ttl:PT24H}") Duration jobTtl,
+                                 @Value("${qr.bulk.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                 @Value("${qr.bulk.queue-capacity:8}") int queueCapacity,
+                                 @Value("${qr.bulk.heartbeat-lease:PT1M}") Duration heartbeatLease) {
+        this.repository = repository;
+        this.qrImageRenderer = qrImageRenderer;
+        this.qrImageStore = qrImageStore;
+        this.s3Service = s3Service;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheGenerations = cacheGenerations;
+        this.maxItems = maxItems;
+        this.chunkSize = chunkSize;
+        this.jobTtl = jobTtl;
+        this.heartbeatLease = heartbeatLease;
+
+        this.jobExecutor = new ThreadPoolExecutor(
+                maxConcurrentJobs, maxConcurrentJobs,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                daemonThreads("qr-bulk-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.renderExecutor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), daemonThreads("qr-bulk-render-"));
+    }
+
+    @Override
+    public QrBulkJobDto startBulkCreate(List<QrCodeDto> qrCodeDtos) {
+        if (qrCodeDtos == null || qrCodeDtos.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách QR code không được rỗng");
+        }
+        if (qrCodeDtos.size() > maxItems) {
+            throw new IllegalArgumentException("Chỉ được tạo tối đa " + maxItems + " QR code mỗi lần");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        QrBulkJobDto job = QrBulkJobDto.builder()
+                .jobId(UUID.randomUUID())
+                .status(QrBulkJobStatusEnum.PENDING.getCode())
+                .total(qrCodeDtos.size())
+                .createdDate(now)
+                .lastUpdated(now)
+                .build();
+
+        List<Integer> accepted = validate(qrCodeDtos, job);
+        heartbeat();
+        saveJob(job);
+        redisTemplate.opsForValue().set(JOB_KEY_PREFIX + job.getJobId() + OWNER_KEY_SUFFIX, workerId, jobTtl);
+
+        // Worker làm trên bản sao riêng; bản trả về cho client không bị sửa đồng thời
+        QrBulkJobDto working = objectMapper.convertValue(job, QrBulkJobDto.class);
+        try {
+            jobExecutor.execute(() -> run(working, qrCodeDtos, accepted));
+        } catch (RejectedExecutionException e) {
+            redisTemplate.delete(List.of(JOB_KEY_PREFIX + job.getJobId(), JOB_KEY_PREFIX + job.getJobId() + OWNER_KEY_SUFFIX));
+            throw new ServiceUnavailableException("Hệ thống đang xử lý nhiều yêu cầu tạo QR hàng loạt, vui lòng thử lại sau", 30);
+        }
+
+        log.info("Started QR bulk job {} with {} items ({} accepted)", job.getJobId(), job.getTotal(), accepted.size());
+        return job;
+    }
+
+    @Override
+    public QrBulkJobDto getJob(UUID jobId) {
+        String json = redisTemplate.opsForValue().get(JOB_KEY_PREFIX + jobId);
+        if (json == null) {
+            throw new ResourceNotFoundException("Không tìm thấy bulk job " + jobId);
+        }
+        QrBulkJobDto job;
+        try {
+            job = objectMapper.readValue(json, QrBulkJobDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không đọc được trạng thái bulk job", e);
+        }
+
+        Integer status = job.getStatus();
+        boolean unfinished = status != null
+                && (status == QrBulkJobStatusEnum.PENDING.getCode() || status == QrBulkJobStatusEnum.RUNNING.getCode());
+        if (unfinished && !isWorkerAlive(jobId)) {
+            // Pod xử lý đã dừng giữa chừng: trạng thái trong Redis sẽ không bao giờ được cập nhật nữa
+            job.setStatus(QrBulkJobStatusEnum.FAILED.getCode());
+            job.setError("Job bị gián đoạn do instance xử lý đã dừng; các QR code đã tạo được liệt kê trong kết quả");
+        }
+        return job;
+    }
+
+    /**
+     * Làm mới heartbeat của pod này; hết hạn (pod chết) thì các job của pod được coi là bị gián đoạn.
+     */
+    @Scheduled(fixedDelayString = "${qr.bulk.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        try {
+            redisTemplate.opsForValue().set(WORKER_KEY_PREFIX + workerId, "1", heartbeatLease);
+        } catch (RuntimeException e) {
+            log.warn("Refresh QR bulk worker heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean isWorkerAlive(UUID jobId) {
+        String owner = redisTemplate.opsForValue().get(JOB_KEY_PREFIX + jobId + OWNER_KEY_SUFFIX);
+        return owner != null && Boolean.TRUE.equals(redisTemplate.hasKey(WORKER_KEY_PREFIX + owner));
+    }
+
+    /**
+     * Kiểm tra dữ liệu, trùng mã trong request và trùng với DB (một query IN).
+     * Trả về index các phần tử hợp lệ; phần tử lỗi được ghi thẳng vào kết quả job.
+     */
+    private List<Integer> validate(List<QrCodeDto> qrCodeDtos, QrBulkJobDto job) {
+        Set<String> codes = new HashSet<>();
+        for (QrCodeDto dto : qrCodeDtos) {
+            if (dto != null && dto.getQrCode() != null) {
+                codes.add(dto.getQrCode());
+            }
+        }
+        Set<String> existing = codes.isEmpty() ? Set.of() : new HashSet<>(repository.findExistingQrCodes(codes));
+
+        Set<String> seen = new HashSet<>();
+        List<Integer> accepted = new ArrayList<>(qrCodeDtos.size());
+        for (int i = 0; i < qrCodeDtos.size(); i++) {
+            QrCodeDto dto = qrCodeDtos.get(i);
+            String error = null;
+            if (dto == null || dto.getQrCode() == null || dto.getQrCode().isBlank()) {
+                error = "QR code không được rỗng";
+            } else if (dto.getName() == null || dto.getName().isBlank()) {
+                error = "Name không được rỗng";
+            } else if (dto.getAccountId() == null) {
+                error = "AccountId không được null";
+            } else if (dto.getActivityId() == null) {
+                error = "ActivityId không được null";
+            } else if (existing.contains(dto.getQrCode())) {
+                error = "QRCode với mã này đã tồn tại";
+            } else if (!seen.add(dto.getQrCode())) {
+                error = "QRCode bị trùng trong danh sách";
+            }
+
+            if (error != null) {
+                fail(job, i, dto != null ? dto.getQrCode() : null, error);
+            } else {
+                accepted.add(i);
+            }
+        }
+        return accepted;
+    }
+
+    void run(QrBulkJobDto job, List<QrCodeDto> qrCodeDtos, List<Integer> accepted) {
+        job.setStatus(QrBulkJobStatusEnum.RUNNING.getCode());
+        saveJob(job);
+        try {
+            for (int from = 0; from < accepted.size(); from += chunkSize) {
+                processChunk(job, qrCodeDtos, accepted.subList(from, Math.min(from + chunkSize, accepted.size())));
+                saveJob(job);
+            }
+            job.setStatus(QrBulkJobStatusEnum.COMPLETED.getCode());
+        } catch (RuntimeException e) {
+            log.error("QR bulk job {} failed", job.getJobId(), e);
+            job.setStatus(QrBulkJobStatusEnum.FAILED.getCode());
+            job.setError(e.getMessage());
+        } finally {
+            job.getResults().sort(Comparator.comparingInt(QrBulkItemResultDto::getIndex));
+            saveJob(job);
+            // Chỉ làm mới danh sách của các account có QR trong job
+            accepted.stream()
+                    .map(index -> qrCodeDtos.get(index).getAccountId())
+                    .distinct()
+                    .forEach(accountId -> cacheGenerations.bump("qr_codes_list", "account", accountId));
+        }
+        log.info("QR bulk job {} finished: succeeded={}, failed={}", job.getJobId(), job.getSucceeded(), job.getFailed());
+    }
+
+    private void processChunk(QrBulkJobDto job, List<QrCodeDto> qrCodeDtos, List<Integer> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Render song song trên pool riêng, mỗi ảnh được upload ngay khi render xong;
+        // ảnh cùng nội dung đã có trên S3 thì bỏ qua cả render lẫn upload
+        List<String> keys = new ArrayList<>(chunk.size());
+        List<CompletableFuture<String>> uploads = new ArrayList<>(chunk.size());
+        for (int index : chunk) {
+            String code = qrCodeDtos.get(index).getQrCode();
+            String key = qrImageStore.key(code);
+            keys.add(key);
+            uploads.add(CompletableFuture
+                    .supplyAsync(() -> qrImageStore.isStored(key) ? null : render(code), renderExecutor)
+                    .thenCompose(png -> png == null
+                            ? CompletableFuture.completedFuture(s3Service.getObjectUrl(key))
+                            : s3Service.uploadBytesAsync(png, key, "image/png")
+                                    .thenApply(url -> {
+                                        qrImageStore.markStored(key);
+                                        return url;
+                                    })));
+        }
+
+        List<QrCode> entities = new ArrayList<>(chunk.size());
+        List<Integer> entityIndexes = new ArrayList<>(chunk.size());
+        for (int k = 0; k < chunk.size(); k++) {
+            int index = chunk.get(k);
+            QrCodeDto dto = qrCodeDtos.get(index);
+            try {
+                String imageUrl = uploads.get(k).join();
+                QrCode entity = QrCodeMapper.toEntity(dto);
+                entity.setId(null);
+                entity.setImageUrl(imageUrl);
+                entity.setImageStatus(QrImageStatusEnum.READY.getCode());
+                entity.setCreatedDate(now);
+                entity.setStatus(dto.getStatus() != null ? dto.getStatus() : 1);
+                entities.add(entity);
+                entityIndexes.add(index);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("QR bulk job {}: item {} ({}) failed: {}", job.getJobId(), index, keys.get(k), cause.getMessage());
+                fail(job, index, dto.getQrCode(), "Lỗi khi tạo hoặc tải QR code: " + cause.getMessage());
+            }
+        }
+        if (entities.isEmpty()) return;
+
+        // Cả chunk insert trong một transaction (hibernate.jdbc.batch_size gộp thành batch insert)
+        try {
+            List<QrCode> saved = transactionTemplate.execute(status -> repository.saveAll(entities));
+            for (int k = 0; k < saved.size(); k++) {
+                QrCode qrCode = saved.get(k);
+                job.getResults().add(QrBulkItemResultDto.builder()
+                        .index(entityIndexes.get(k))
+                        .qrCode(qrCode.getQrCode())
+                        .id(qrCode.getId())
+                        .imageUrl(qrCode.getImageUrl())
+                        .build());
+                job.setSucceeded(job.getSucceeded() + 1);
+                job.setProcessed(job.getProcessed() + 1);
+            }
+        } catch (RuntimeException e) {
+            log.warn("QR bulk job {}: insert chunk failed", job.getJobId(), e);
+            for (int k = 0; k < entities.size(); k++) {
+                fail(job, entityIndexes.get(k), entities.get(k).getQrCode(), "Lỗi khi lưu QR code: " + e.getMessage());
+            }
+        }
+    }
+
+    private byte[] render(String code) {
+        try {
+            return qrImageRenderer.renderPng(code);
+        } catch (WriterException e) {
+            throw new IllegalArgumentException("Không tạo được ảnh QR cho mã " + code, e);
+        }
+    }
+
+    private static void fail(QrBulkJobDto job, int index, String qrCode, String error) {
+        job.getResults().add(QrBulkItemResultDto.builder()
+                .index(index)
+                .qrCode(qrCode)
+                .error(error)
+                .build());
+        job.setFailed(job.getFailed() + 1);
+        job.setProcessed(job.getProcessed() + 1);
+    }
+
+    private void saveJob(QrBulkJobDto job) {
+        job.setLastUpdated(LocalDateTime.now());
+        try {
+            redisTemplate.opsForValue().set(JOB_KEY_PREFIX + job.getJobId(), objectMapper.writeValueAsString(job), jobTtl);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không lưu được trạng thái bulk job", e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdown();
+        renderExecutor.shutdown();
+        // Tắt bình thường: thread job là daemon nên dừng theo JVM, báo ngay cho client thay vì chờ hết lease
+        try {
+            redisTemplate.delete(WORKER_KEY_PREFIX + workerId);
+        } catch (RuntimeException e) {
+            log.warn("Remove QR bulk worker heartbeat failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.alpha_code.alpha_code_activity_service.service.impl;
+
+import com.alpha_code.alpha_code_activity_service.entity.QrCode;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageRenderer;
+import com.alpha_code.alpha_code_activity_service.qr.QrSheetPdfWriter;
+import com.alpha_code.alpha_code_activity_service.repository.QrCodeRepository;
+import com.alpha_code.alpha_code_activity_service.service.QrCodeExportService;
+import com.google.zxing.WriterException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Xuất QR code của một account để in: ZIP các file PNG hoặc tờ in PDF.
+ * Dữ liệu được đọc theo trang (keyset trên createdDate, id) từ DB và ảnh được render ngay khi ghi ra
+ * response, nên bộ nhớ dùng chỉ phụ thuộc kích thước trang, không phụ thuộc số QR code.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QrCodeExportServiceImpl implements QrCodeExportService {
+
+    private final QrCodeRepository repository;
+    private final QrImageRenderer qrImageRenderer;
+
+    @Value("${qr.export.page-size:200}")
+    private int pageSize;
+
+    @Override
+    public void exportZip(UUID accountId, OutputStream output) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(output);
+        CRC32 crc = new CRC32();
+        Set<String> entryNames = new HashSet<>();
+        int count = 0;
+
+        for (List<QrCode> qrCodes = nextPage(accountId, null); ; qrCodes = nextPage(accountId, last(qrCodes))) {
+            for (QrCode qrCode : qrCodes) {
+                byte[] png = render(qrCode);
+
+                // PNG đã nén sẵn → lưu STORED, không deflate lần nữa
+                ZipEntry entry = new ZipEntry(entryName(qrCode, entryNames));
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(png.length);
+                entry.setCompressedSize(png.length);
+                crc.reset();
+                crc.update(png);
+                entry.setCrc(crc.getValue());
+
+                zip.putNextEntry(entry);
+                zip.write(png);
+                zip.closeEntry();
+                count++;
+            }
+            zip.flush();
+            if (qrCodes.size() < pageSize) break;
+        }
+
+        // finish() thay vì close(): stream của response do container đóng
+        zip.finish();
+        log.info("Exported {} QR codes as ZIP for account {}", count, accountId);
+    }
+
+    @Override
+    public void exportPdf(UUID accountId, OutputStream output) throws IOException {
+        int count = 0;
+        try (QrSheetPdfWriter pdf = new QrSheetPdfWriter(output)) {
+            for (List<QrCode> qrCodes = nextPage(accountId, null); ; qrCodes = nextPage(accountId, last(qrCodes))) {
+                for (QrCode qrCode : qrCodes) {
+                    try {
+                        pdf.add(qrImageRenderer.encode(qrCode.getQrCode()), qrCode.getName(), qrCode.getQrCode());
+                    } catch (WriterException e) {
+                        throw new IllegalStateException("Không tạo được QR code " + qrCode.getQrCode(), e);
+                    }
+                    count++;
+                }
+                if (qrCodes.size() < pageSize) break;
+            }
+
+            pdf.finish();
+        }
+        log.info("Exported {} QR codes as PDF for account {}", count, accountId);
+    }
+
+    /**
+     * Trang kế tiếp sau {@code after} theo thứ tự (createdDate, id) giảm dần; {@code after} null là trang đầu.
+     */
+    private List<QrCode> nextPage(UUID accountId, QrCode after) {
+        PageRequest page = PageRequest.of(0, pageSize);
+        return after == null
+                ? repository.findExportPage(accountId, page)
+                : repository.findExportPageAfter(accountId, after.getCreatedDate(), after.getId(), page);
+    }
+
+    private static QrCode last(List<QrCode> qrCodes) {
+        return qrCodes.get(qrCodes.size() - 1);
+    }
+
+    private byte[] render(QrCode qrCode) {
+        try {
+            return qrImageRenderer.renderPng(qrCode.getQrCode());
+        } catch (WriterException e) {
+            throw new IllegalStateException("Không tạo được QR code " + qrCode.getQrCode(), e);
+        }
+    }
+
+    /**
+     * Tên file theo mã QR, bỏ ký tự không hợp lệ trong tên file và thêm hậu tố nếu trùng.
+     */
+    private static String entryName(QrCode qrCode, Set<String> used) {
+        String base = qrCode.getQrCode().replaceAll("[^A-Za-z0-9._-]", "_");
+        String name = base + ".png";
+        for (int i = 2; !used.add(name); i++) {
+            name = base + "_" + i + ".png";
+        }
+        return name;
+    }
+}
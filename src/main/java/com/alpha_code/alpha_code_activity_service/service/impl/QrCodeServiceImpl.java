@@ -1,22 +1,32 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
 import com.alpha_code.alpha_code_activity_service.dto.ActivityDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
 import com.alpha_code.alpha_code_activity_service.dto.QrCodeDto;
+import com.alpha_code.alpha_code_activity_service.dto.QrScanResultDto;
 import com.alpha_code.alpha_code_activity_service.entity.QrCode;
+import com.alpha_code.alpha_code_activity_service.enums.QrImageStatusEnum;
 import com.alpha_code.alpha_code_activity_service.exception.ResourceNotFoundException;
+import com.alpha_code.alpha_code_activity_service.exception.ServiceUnavailableException;
+import com.alpha_code.alpha_code_activity_service.mapper.ActivityMapper;
 import com.alpha_code.alpha_code_activity_service.mapper.QrCodeMapper;
+import com.alpha_code.alpha_code_activity_service.qr.QrDecodeExecutor;
+import com.alpha_code.alpha_code_activity_service.qr.QrDecodeResultCache;
+import com.alpha_code.alpha_code_activity_service.qr.QrDecoderEngine;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageRenderer;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageStore;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageUploadOutbox;
 import com.alpha_code.alpha_code_activity_service.repository.QrCodeRepository;
-import com.alpha_code.alpha_code_activity_service.service.ActivityService;
 import com.alpha_code.alpha_code_activity_service.service.QrCodeService;
 import com.alpha_code.alpha_code_activity_service.service.S3Service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.zxing.*;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
@@ -27,18 +37,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-
-import boofcv.abst.fiducial.QrCodeDetector;
-import boofcv.factory.fiducial.FactoryFiducial;
-import boofcv.io.image.ConvertBufferedImage;
-import boofcv.struct.image.GrayU8;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -47,11 +59,24 @@ public class QrCodeServiceImpl implements QrCodeService {
 
     private final QrCodeRepository repository;
     private final S3Service s3Service;
-    private final ActivityService activityService;
     private final ObjectMapper objectMapper;
+    private final QrDecoderEngine qrDecoderEngine;
+    private final QrDecodeExecutor qrDecodeExecutor;
+    private final QrDecodeResultCache qrDecodeResultCache;
+    private final QrImageRenderer qrImageRenderer;
+    private final QrImageUploadOutbox qrImageUploadOutbox;
+    private final QrImageStore qrImageStore;
+    private final CacheManager cacheManager;
+    private final CacheGenerations cacheGenerations;
+
+    @Value("${qr.decoder.batch.max-images:20}")
+    private int maxBatchImages;
+
+    @Value("${qr.decoder.stream.max-bytes:52428800}")
+    private long maxStreamBytes;
 
     @Override
-    @Cacheable(value = "qr_codes_list", key = "{#page, #size, #status, #accountId}")
+    @Cacheable(value = "qr_codes_list", key = "{@cacheGenerations.version('qr_codes_list', 'account', #accountId), #page, #size, #status, #accountId}")
     public PagedResult<QrCodeDto> getAll(int page, int size, Integer status, UUID accountId) {
         Pageable pageable = PageRequest.of(page - 1, size);
         Page<QrCode> pageResult;
@@ -79,58 +104,273 @@ public class QrCodeServiceImpl implements QrCodeService {
                 throw new IllegalArgumentException("File ảnh không được null hoặc rỗng");
             }
 
-            // Đọc ảnh từ MultipartFile
-            BufferedImage bufferedImage = ImageIO.read(file.getInputStream());
-            if (bufferedImage == null) {
-                throw new IllegalArgumentException("File ảnh không hợp lệ hoặc không thể đọc");
+            List<String> detections = decodeImage(file.getBytes());
+
+            if (detections.isEmpty()) {
+                throw new ResourceNotFoundException("Không tìm thấy QR code trong ảnh (mờ, nghiêng, background...)");
             }
 
-            // Chuyển BufferedImage sang ảnh grayscale GrayU8 của BoofCV
-            GrayU8 gray = ConvertBufferedImage.convertFrom(bufferedImage, (GrayU8) null);
+            // Lấy QR code đầu tiên
+            String decodedText = detections.get(0);
+
+            log.info("Decoded QR code text: {}", decodedText);
+
+            // Lấy QR code + activity trong một query (có cache riêng)
+            return getActivityByCode(decodedText);
+
+        } catch (IOException e) {
+            throw new RuntimeException("Lỗi khi đọc file ảnh QR code", e);
+        } catch (ResourceNotFoundException | IllegalArgumentException | ServiceUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Lỗi khi decode QR code", e);
+        }
+    }
 
-            // Tạo QR code detector
-            QrCodeDetector<GrayU8> detector = FactoryFiducial.qrcode(null, GrayU8.class);
 
-            // Phát hiện QR code
-            detector.process(gray);
+    /**
+     * Chế độ streaming: ảnh gửi thẳng làm request body, không qua bước buffer multipart (không file tạm).
+     * Body được đọc hết trên thread request (I/O theo tốc độ client) vào một mảng đúng Content-Length;
+     * pool decode chỉ nhận bytes đã đủ, nên upload chậm không giữ worker và không làm pool báo 503.
+     */
+    @Override
+    public ActivityDto getByQrImageStream(InputStream body, long contentLength) {
+        try {
+            if (body == null || contentLength <= 0) {
+                throw new IllegalArgumentException("Request phải có Content-Length và nội dung ảnh không được rỗng");
+            }
+            if (contentLength > maxStreamBytes) {
+                throw new IllegalArgumentException("Ảnh vượt quá dung lượng cho phép (" + maxStreamBytes + " bytes)");
+            }
 
-            List<boofcv.alg.fiducial.qrcode.QrCode> detections = detector.getDetections();
+            byte[] bytes = readBody(body, (int) contentLength);
+            String contentHash = QrDecodeResultCache.hash(bytes);
+            List<String> detections = qrDecodeResultCache.get(contentHash);
+            if (detections == null) {
+                detections = qrDecodeExecutor.execute(() -> {
+                    try {
+                        return qrDecoderEngine.decode(new ByteArrayInputStream(bytes));
+                    } catch (IOException e) {
+                        // Không phải ảnh / ảnh hỏng: lỗi dữ liệu đầu vào như ảnh không đọc được
+                        throw new IllegalArgumentException("File ảnh không hợp lệ hoặc không thể đọc", e);
+                    }
+                });
+                qrDecodeResultCache.put(contentHash, detections);
+            }
 
             if (detections.isEmpty()) {
                 throw new ResourceNotFoundException("Không tìm thấy QR code trong ảnh (mờ, nghiêng, background...)");
             }
 
-            // Lấy QR code đầu tiên
-            String decodedText = detections.get(0).message;
-            if (decodedText == null || decodedText.isBlank()) {
-                throw new IllegalArgumentException("Không tìm thấy nội dung QR code trong ảnh");
+            String decodedText = detections.get(0);
+            log.info("Decoded QR code text (stream): {}", decodedText);
+            return getActivityByCode(decodedText);
+
+        } catch (ResourceNotFoundException | IllegalArgumentException | ServiceUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Lỗi khi decode QR code", e);
+        }
+    }
+
+    /**
+     * Đọc đúng {@code length} bytes; readNBytes cấp phát dần theo dữ liệu thật nhận được,
+     * nên Content-Length khai khống không làm cấp phát trước cả mảng.
+     */
+    private static byte[] readBody(InputStream body, int length) {
+        try {
+            byte[] bytes = body.readNBytes(length);
+            if (bytes.length < length) {
+                throw new IllegalArgumentException("Nội dung ảnh ngắn hơn Content-Length");
             }
+            return bytes;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Không đọc được nội dung ảnh từ request", e);
+        }
+    }
 
-            log.info("Decoded QR code text: {}", decodedText);
+    @Override
+    public List<QrScanResultDto> getByQrImages(List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách ảnh không được rỗng");
+        }
+        if (files.size() > maxBatchImages) {
+            throw new IllegalArgumentException("Chỉ được gửi tối đa " + maxBatchImages + " ảnh mỗi lần");
+        }
+
+        List<QrScanResultDto> results = new ArrayList<>(files.size());
+        List<String> hashes = new ArrayList<>(files.size());
+        List<Future<List<String>>> futures = new ArrayList<>(files.size());
+
+        // Đưa tất cả ảnh vào pool decode trước rồi mới chờ → các ảnh được decode song song
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                MultipartFile file = files.get(i);
+                QrScanResultDto result = QrScanResultDto.builder()
+                        .index(i)
+                        .fileName(file.getOriginalFilename())
+                        .build();
+                results.add(result);
+
+                String contentHash = null;
+                Future<List<String>> future = null;
+                if (file.isEmpty()) {
+                    result.setError("File ảnh rỗng");
+                } else {
+                    try {
+                        byte[] bytes = file.getBytes();
+                        contentHash = QrDecodeResultCache.hash(bytes);
+                        future = submitDecode(contentHash, bytes);
+                    } catch (IOException e) {
+                        result.setError("Lỗi khi đọc file ảnh QR code");
+                    }
+                }
+                hashes.add(contentHash);
+                futures.add(future);
+            }
+        } catch (ServiceUnavailableException e) {
+            futures.forEach(future -> {
+                if (future != null) future.cancel(true);
+            });
+            throw e;
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            Future<List<String>> future = futures.get(i);
+            if (future == null) continue;
 
-            // Lấy thông tin từ DB
-            QrCodeDto qrCodeDto = getByCode(decodedText);
-            if (qrCodeDto == null) throw new ResourceNotFoundException("QR code không tồn tại");
+            QrScanResultDto result = results.get(i);
+            try {
+                List<String> detections = qrDecodeExecutor.await(future);
+                qrDecodeResultCache.put(hashes.get(i), detections);
+                if (detections.isEmpty()) {
+                    result.setError("Không tìm thấy QR code trong ảnh");
+                } else {
+                    result.setQrCode(detections.get(0));
+                }
+            } catch (RuntimeException e) {
+                result.setError(scanErrorMessage(e));
+            }
+        }
+
+        resolveActivities(results);
+        return results;
+    }
+
+    /**
+     * Thông báo lỗi cố định cho từng ảnh trong batch, không trả message nội bộ của exception cho client.
+     */
+    private String scanErrorMessage(RuntimeException e) {
+        if (e instanceof ResourceNotFoundException) {
+            return "Không tìm thấy QR code trong ảnh";
+        }
+        if (e instanceof IllegalArgumentException) {
+            return "File ảnh không hợp lệ hoặc không thể đọc";
+        }
+        if (e instanceof ServiceUnavailableException) {
+            return "Hệ thống đang bận xử lý ảnh QR, vui lòng thử lại sau";
+        }
+        log.warn("Decode QR image in batch failed", e);
+        return "Lỗi khi decode QR code";
+    }
+
+    @Override
+    public List<QrScanResultDto> getAllByQrImage(MultipartFile file) {
+        try {
+            if (file == null || file.isEmpty()) {
+                throw new IllegalArgumentException("File ảnh không được null hoặc rỗng");
+            }
+
+            byte[] bytes = file.getBytes();
+            // Key riêng cho chế độ nhiều mã vì kết quả khác chế độ một mã
+            String contentHash = QrDecodeResultCache.hash(bytes) + ":all";
+            List<String> detections = qrDecodeResultCache.get(contentHash);
+            if (detections == null) {
+                detections = qrDecodeExecutor.execute(() -> qrDecoderEngine.decodeAll(new ByteArrayInputStream(bytes)));
+                qrDecodeResultCache.put(contentHash, detections);
+            }
 
-            ActivityDto activityDto = activityService.getActivityById(qrCodeDto.getActivityId());
-            if (activityDto == null) throw new ResourceNotFoundException("Activity không tồn tại");
+            if (detections.isEmpty()) {
+                throw new ResourceNotFoundException("Không tìm thấy QR code trong ảnh (mờ, nghiêng, background...)");
+            }
+            log.info("Decoded {} QR codes in one image: {}", detections.size(), detections);
+
+            List<QrScanResultDto> results = new ArrayList<>(detections.size());
+            for (int i = 0; i < detections.size(); i++) {
+                results.add(QrScanResultDto.builder()
+                        .index(i)
+                        .fileName(file.getOriginalFilename())
+                        .qrCode(detections.get(i))
+                        .build());
+            }
 
-            return activityDto;
+            resolveActivities(results);
+            return results;
 
         } catch (IOException e) {
             throw new RuntimeException("Lỗi khi đọc file ảnh QR code", e);
-        } catch (ResourceNotFoundException e) {
+        } catch (ResourceNotFoundException | IllegalArgumentException | ServiceUnavailableException e) {
             throw e;
         } catch (Exception e) {
             throw new RuntimeException("Lỗi khi decode QR code", e);
         }
     }
 
+    /**
+     * Resolve QR text → activity cho cả danh sách bằng một query duy nhất.
+     */
+    private void resolveActivities(List<QrScanResultDto> results) {
+        Set<String> codes = results.stream()
+                .map(QrScanResultDto::getQrCode)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (codes.isEmpty()) return;
+
+        // Fetch join QR code + activity; query đã sắp theo createdDate DESC → giữ bản ghi mới nhất nếu trùng code
+        Map<String, QrCode> qrCodes = repository.findAllActiveWithActivityByQrCodeIn(codes).stream()
+                .collect(Collectors.toMap(QrCode::getQrCode, Function.identity(), (first, second) -> first));
+
+        for (QrScanResultDto result : results) {
+            if (result.getQrCode() == null) continue;
+
+            QrCode qrCode = qrCodes.get(result.getQrCode());
+            if (qrCode == null) {
+                result.setError("QR code không tồn tại");
+                continue;
+            }
+            if (qrCode.getActivity() == null) {
+                result.setError("Activity không tồn tại");
+                continue;
+            }
+            result.setActivity(ActivityMapper.toDto(qrCode.getActivity()));
+        }
+    }
+
+    /**
+     * Ảnh upload lại y hệt → trả luôn kết quả decode trước đó; ngược lại decode trên pool riêng
+     * (không chiếm thread Tomcat), thẳng từ bytes sang ảnh grayscale.
+     */
+    private List<String> decodeImage(byte[] bytes) {
+        String contentHash = QrDecodeResultCache.hash(bytes);
+        List<String> detections = qrDecodeResultCache.get(contentHash);
+        if (detections == null) {
+            detections = qrDecodeExecutor.execute(() -> qrDecoderEngine.decode(new ByteArrayInputStream(bytes)));
+            qrDecodeResultCache.put(contentHash, detections);
+        }
+        return detections;
+    }
 
+    private Future<List<String>> submitDecode(String contentHash, byte[] bytes) {
+        List<String> cached = qrDecodeResultCache.get(contentHash);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return qrDecodeExecutor.submit(() -> qrDecoderEngine.decode(new ByteArrayInputStream(bytes)));
+    }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"qr_codes_list", "qr_codes"}, allEntries = true)
+    @CacheEvict(value = {"qr_codes", "qr_code_activities"}, allEntries = true)
     public QrCodeDto create(QrCodeDto qrCodeDto) {
         if (qrCodeDto == null || qrCodeDto.getQrCode() == null) {
             throw new IllegalArgumentException("QRCodeDto và các trường không được null");
@@ -153,14 +393,17 @@ public class QrCodeServiceImpl implements QrCodeService {
             entity.setCreatedDate(LocalDateTime.now());
             entity.setStatus(qrCodeDto.getStatus() != null ? qrCodeDto.getStatus() : 1);
 
-            // Tạo QR code và upload S3
-            String fileName = "qr_" + entity.getQrCode() + "_" + System.currentTimeMillis() + ".png";
-            String imageUrl = generateAndUploadQRCode(entity.getQrCode(), fileName);
-            entity.setImageUrl(imageUrl);
+            // Tạo QR code và upload S3 (async: chỉ ghi outbox, upload sau khi commit)
+            String key = qrImageStore.key(entity.getQrCode());
+            byte[] pngData = attachImage(entity, key);
 
             QrCode saved = repository.save(entity);
+            bumpListGeneration(saved);
+            if (pngData != null && qrImageUploadOutbox.isEnabled()) {
+                qrImageUploadOutbox.enqueue(saved.getId(), saved.getQrCode(), key, pngData);
+            }
             return QrCodeMapper.toDto(saved);
-        } catch (WriterException | IOException e) {
+        } catch (WriterException e) {
             throw new RuntimeException("Lỗi khi tạo hoặc tải QR code", e);
         }
     }
@@ -185,11 +428,13 @@ public class QrCodeServiceImpl implements QrCodeService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"qr_codes_list"}, allEntries = true)
+    @CacheEvict(value = "qr_code_activities", allEntries = true)
     @CachePut(value = "qr_codes", key = "#id")
     public QrCodeDto update(UUID id, QrCodeDto qrCodeDto) {
         var existed = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("QRCode not found"));
+        // Danh sách của account cũ (nếu đổi) cũng phải làm mới
+        bumpListGeneration(existed);
 
         existed.setName(qrCodeDto.getName());
         existed.setColor(qrCodeDto.getColor());
@@ -206,16 +451,19 @@ public class QrCodeServiceImpl implements QrCodeService {
         existed.setLastUpdated(LocalDateTime.now());
 
         QrCode savedEntity = repository.save(existed);
+        bumpListGeneration(savedEntity);
         return QrCodeMapper.toDto(savedEntity);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"qr_codes_list"}, allEntries = true)
+    @CacheEvict(value = "qr_code_activities", allEntries = true)
     @CachePut(value = "qr_codes", key = "#id")
     public QrCodeDto patchUpdate(UUID id, QrCodeDto qrCodeDto) {
         QrCode existed = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("QRCode not found with id " + id));
+        // Danh sách của account cũ (nếu đổi) cũng phải làm mới
+        bumpListGeneration(existed);
 
         boolean regenerateImage = false;
 
@@ -241,26 +489,30 @@ public class QrCodeServiceImpl implements QrCodeService {
 
         // regenerate image nếu cần
         if (regenerateImage) {
-            String fileName = "qr_" + existed.getQrCode() + "_" + System.currentTimeMillis() + ".png";
+            String key = qrImageStore.key(existed.getQrCode());
             try {
-                String imageUrl = generateAndUploadQRCode(existed.getQrCode(), fileName);
-                if (imageUrl == null) {
+                byte[] pngData = attachImage(existed, key);
+                if (existed.getImageUrl() == null) {
                     throw new RuntimeException("Không tạo được QR image");
                 }
-                existed.setImageUrl(imageUrl);
-            } catch (WriterException | IOException e) {
+                if (pngData != null && qrImageUploadOutbox.isEnabled()) {
+                    qrImageUploadOutbox.enqueue(existed.getId(), existed.getQrCode(), key, pngData);
+                }
+            } catch (WriterException e) {
                 throw new RuntimeException("Lỗi khi tạo lại QRCode image", e);
             }
         }
 
         existed.setLastUpdated(LocalDateTime.now());
 
-        return QrCodeMapper.toDto(repository.save(existed));
+        QrCode savedEntity = repository.save(existed);
+        bumpListGeneration(savedEntity);
+        return QrCodeMapper.toDto(savedEntity);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"qr_codes_list", "qr_codes"}, key = "#id", allEntries = true)
+    @CacheEvict(value = {"qr_codes", "qr_code_activities"}, key = "#id", allEntries = true)
     public String delete(UUID id) {
         try {
             var existed = repository.findById(id)
@@ -269,6 +521,7 @@ public class QrCodeServiceImpl implements QrCodeService {
             existed.setStatus(0);
             existed.setLastUpdated(LocalDateTime.now());
             repository.save(existed);
+            bumpListGeneration(existed);
             return "Deleted QRCode with ID: " + id;
         } catch (Exception e) {
             throw new RuntimeException("Error deleting QRCode", e);
@@ -278,7 +531,7 @@ public class QrCodeServiceImpl implements QrCodeService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"qr_codes_list", "qr_codes"}, key = "#id", allEntries = true)
+    @CacheEvict(value = {"qr_codes", "qr_code_activities"}, key = "#id", allEntries = true)
     public String disable(UUID id) {
         try {
             var existed = repository.findById(id)
@@ -287,6 +540,7 @@ public class QrCodeServiceImpl implements QrCodeService {
             existed.setStatus(2);
             existed.setLastUpdated(LocalDateTime.now());
             repository.save(existed);
+            bumpListGeneration(existed);
             return "Disable QRCode with ID: " + id;
         } catch (Exception e) {
             throw new RuntimeException("Error disable QRCode", e);
@@ -302,9 +556,36 @@ public class QrCodeServiceImpl implements QrCodeService {
                 .orElseThrow(() -> new ResourceNotFoundException("QRCode not found"));
     }
 
+    /**
+     * QR text → activity, cache "qr_code_activities" giữ kết quả đã join sẵn
+     * và bị xóa khi QR code hoặc activity thay đổi.
+     */
+    @Override
+    public ActivityDto getActivityByCode(String code) {
+        Cache cache = cacheManager.getCache("qr_code_activities");
+        Cache.ValueWrapper cached = cache != null ? cache.get(code) : null;
+        if (cached != null) {
+            return (ActivityDto) cached.get();
+        }
+
+        // Một query duy nhất: QR code fetch join activity
+        QrCode qrCode = repository.findActiveWithActivityByQrCode(code).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("QR code không tồn tại"));
+        if (qrCode.getActivity() == null) {
+            throw new ResourceNotFoundException("Activity không tồn tại");
+        }
+
+        ActivityDto activityDto = ActivityMapper.toDto(qrCode.getActivity());
+        if (cache != null) {
+            cache.put(code, activityDto);
+        }
+        return activityDto;
+    }
+
     @Override
     @Transactional
-    @CacheEvict(value = {"qr_codes_list"}, allEntries = true)
+    @CacheEvict(value = "qr_code_activities", allEntries = true)
     @CachePut(value = "qr_codes", key = "#id")
     public QrCodeDto changeStatus(UUID id, Integer status) {
         var existed = repository.findById(id)
@@ -316,24 +597,39 @@ public class QrCodeServiceImpl implements QrCodeService {
         }
         existed.setLastUpdated(LocalDateTime.now());
         QrCode savedEntity = repository.save(existed);
+        bumpListGeneration(savedEntity);
         return QrCodeMapper.toDto(savedEntity);
     }
 
-    private String generateAndUploadQRCode(String text, String fileName) throws WriterException, IOException {
-        int width = 300;
-        int height = 300;
+    private void bumpListGeneration(QrCode qrCode) {
+        cacheGenerations.bump("qr_codes_list", "account", qrCode.getAccountId());
+    }
 
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height);
+    /**
+     * Render ảnh QR và gán imageUrl/imageStatus cho entity.
+     * Chế độ sync upload S3 ngay; chế độ async chỉ tính trước URL, ảnh được upload qua outbox sau khi commit.
+     * Trả về null nếu ảnh cùng nội dung đã có trên S3 (không cần render hay upload).
+     */
+    private byte[] attachImage(QrCode entity, String key) throws WriterException {
+        if (qrImageStore.isStored(key)) {
+            entity.setImageUrl(s3Service.getObjectUrl(key));
+            entity.setImageStatus(QrImageStatusEnum.READY.getCode());
+            return null;
+        }
 
-        // Lưu vào memory thay vì file local
-        try (ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream()) {
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", pngOutputStream);
-            byte[] pngData = pngOutputStream.toByteArray();
+        // PNG 1-bit render thẳng từ ma trận QR (kích thước, mức sửa lỗi theo qr.render.*)
+        byte[] pngData = qrImageRenderer.renderPng(entity.getQrCode());
 
-            // Upload lên S3 và trả về URL
-            return s3Service.uploadBytes(pngData, "qrcodes/" + fileName, "image/png");
+        if (qrImageUploadOutbox.isEnabled()) {
+            entity.setImageUrl(s3Service.getObjectUrl(key));
+            entity.setImageStatus(QrImageStatusEnum.PENDING.getCode());
+        } else {
+            // Upload lên S3 và lấy URL
+            entity.setImageUrl(s3Service.uploadBytes(pngData, key, "image/png"));
+            entity.setImageStatus(QrImageStatusEnum.READY.getCode());
+            qrImageStore.markStored(key);
         }
+        return pngData;
     }
 
 
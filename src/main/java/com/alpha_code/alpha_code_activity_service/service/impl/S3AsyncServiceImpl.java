@@ -0,0 +1,119 @@
+package com.alpha_code.alpha_code_activity_service.service.impl;
+
+import com.alpha_code.alpha_code_activity_service.service.S3Service;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * S3Service trên {@link S3AsyncClient} (Netty), bật bằng {@code cloud.aws.s3.client=async}.
+ * Các upload đi chung một pool connection có giới hạn, thread gọi không bị giữ trong lúc chờ S3.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cloud.aws.s3.client", havingValue = "async")
+public class S3AsyncServiceImpl implements S3Service {
+
+    private final S3AsyncClient s3AsyncClient;
+    private final Region awsRegion;
+
+    @Value("${application.bucket.name}")
+    private String bucketName;
+
+    @Value("${cloud.aws.s3.endpoint:}")
+    private String endpoint;
+
+    @Override
+    public String uploadFile(File file) {
+        String key = "qrcodes/" + file.getName();
+
+        join(s3AsyncClient.putObject(
+                PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType("image/png")
+                        .build(),
+                AsyncRequestBody.fromFile(file)
+        ));
+
+        // Trả về URL public
+        return getObjectUrl(key);
+    }
+
+    @Override
+    public String uploadBytes(byte[] data, String key, String contentType) {
+        return join(uploadBytesAsync(data, key, contentType));
+    }
+
+    @Override
+    public CompletableFuture<String> uploadBytesAsync(byte[] data, String key, String contentType) {
+        return s3AsyncClient.putObject(
+                        PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .contentType(contentType)
+                                .build(),
+                        // Không copy: data không bị sửa sau khi gọi upload
+                        AsyncRequestBody.fromBytesUnsafe(data))
+                .thenApply(response -> getObjectUrl(key));
+    }
+
+    @Override
+    public String getObjectUrl(String key) {
+        if (endpoint != null && !endpoint.isBlank()) {
+            return String.format("%s/%s/%s", endpoint.replaceAll("/+$", ""), bucketName, key);
+        }
+        return String.format("https://%s.s3.%s.amazonaws.com/%s",
+                bucketName,
+                awsRegion.id(),
+                key
+        );
+    }
+
+    /**
+     * Kiểm tra object đã có trên bucket (HEAD, không tải nội dung).
+     */
+    @Override
+    public boolean exists(String key) {
+        try {
+            join(s3AsyncClient.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build()));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Chờ kết quả cho các lời gọi đồng bộ, trả lại nguyên exception của SDK thay vì CompletionException.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
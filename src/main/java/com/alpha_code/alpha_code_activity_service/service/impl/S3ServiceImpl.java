@@ -3,16 +3,22 @@ package com.alpha_code.alpha_code_activity_service.service.impl;
 import com.alpha_code.alpha_code_activity_service.service.S3Service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "cloud.aws.s3.client", havingValue = "sync", matchIfMissing = true)
 public class S3ServiceImpl implements S3Service {
 
     private final S3Client s3Client;
@@ -21,6 +27,9 @@ public class S3ServiceImpl implements S3Service {
     @Value("${application.bucket.name}")
     private String bucketName;
 
+    @Value("${cloud.aws.s3.endpoint:}")
+    private String endpoint;
+
     @Override
     public String uploadFile(File file) {
         String key = "qrcodes/" + file.getName();
@@ -35,11 +44,7 @@ public class S3ServiceImpl implements S3Service {
         );
 
         // Trả về URL public
-        return String.format("https://%s.s3.%s.amazonaws.com/%s",
-                bucketName,
-                awsRegion.id(),
-                key
-        );
+        return getObjectUrl(key);
     }
 
     @Override
@@ -53,6 +58,50 @@ public class S3ServiceImpl implements S3Service {
                 RequestBody.fromBytes(data)
         );
 
+        return getObjectUrl(key);
+    }
+
+    /**
+     * Client blocking: upload chạy ngay trên thread gọi, future đã hoàn thành khi trả về.
+     */
+    @Override
+    public CompletableFuture<String> uploadBytesAsync(byte[] data, String key, String contentType) {
+        try {
+            return CompletableFuture.completedFuture(uploadBytes(data, key, contentType));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Kiểm tra object đã có trên bucket (HEAD, không tải nội dung).
+     */
+    @Override
+    public boolean exists(String key) {
+        try {
+            s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * URL public của object, xác định được trước khi upload.
+     */
+    @Override
+    public String getObjectUrl(String key) {
+        if (endpoint != null && !endpoint.isBlank()) {
+            return String.format("%s/%s/%s", endpoint.replaceAll("/+$", ""), bucketName, key);
+        }
         return String.format("https://%s.s3.%s.amazonaws.com/%s",
                 bucketName,
                 awsRegion.id(),
@@ -1,5 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.cache.CacheIndex;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
 import com.alpha_code.alpha_code_activity_service.dto.SkillDto;
 import com.alpha_code.alpha_code_activity_service.entity.Skill;
@@ -14,6 +16,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -33,6 +36,8 @@ import java.util.UUID;
 @Slf4j
 public class SkillServiceImpl implements SkillService {
     private final SkillRepository skillRepository;
+    private final CacheGenerations cacheGenerations;
+    private final CacheIndex cacheIndex;
     private final RobotServiceClient robotServiceClient;
 
     @Override
@@ -86,31 +91,32 @@ public class SkillServiceImpl implements SkillService {
 
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "skills", key = "#id")
+    @Cacheable(value = "skills", key = "#id", sync = true)
     public SkillDto getSkillById(UUID id) {
-        Skill skill = skillRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy skill với id: " + id));
-        return SkillMapper.toDto(skill);
+        return loadById(id);
     }
 
+    // name/code → id qua cache "skills_index"; bản ghi dùng chung entry theo id với getSkillById
     @Override
-    @Cacheable(value = "skills", key = "#name")
     public SkillDto getSkillByName(String name) {
-        Skill skill = skillRepository.findByNameIgnoreCaseAndStatusNot(name, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy skill với name: " + name));
-        return SkillMapper.toDto(skill);
+        return cacheIndex.get("skills", "name", name, () -> {
+            Skill skill = skillRepository.findByNameIgnoreCaseAndStatusNot(name, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy skill với name: " + name));
+            return SkillMapper.toDto(skill);
+        }, SkillDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "skills", key = "#code")
     public SkillDto getSkillByCode(String code) {
-        Skill skill = skillRepository.findByCodeIgnoreCaseAndStatusNot(code, 0)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy skill với code: " + code));
-        return SkillMapper.toDto(skill);
+        return cacheIndex.get("skills", "code", code, () -> {
+            Skill skill = skillRepository.findByCodeIgnoreCaseAndStatusNot(code, 0)
+                    .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy skill với code: " + code));
+            return SkillMapper.toDto(skill);
+        }, SkillDto::getId, this::loadById);
     }
 
     @Override
-    @Cacheable(value = "skills", key = "{#robotModelId, #page, #size}")
+    @Cacheable(value = "skills_by_model", key = "{@cacheGenerations.version('skills_by_model', 'model', #robotModelId), #robotModelId, #page, #size}", sync = true)
     public PagedResult<SkillDto> getSkillByRobotModelId(UUID robotModelId, int page, int size) {
         Pageable pageable = PageRequest.of(Math.max(page - 1, 0), size);
         Page<Skill> pageResult =
@@ -143,6 +149,7 @@ public class SkillServiceImpl implements SkillService {
         skill.setLastUpdated(null);
         skill.setStatus(1); // Mặc định là active
         Skill savedSkill = skillRepository.save(skill);
+        bumpListGeneration(skill);
         return SkillMapper.toDto(savedSkill);
     }
 
@@ -153,6 +160,9 @@ public class SkillServiceImpl implements SkillService {
     public SkillDto updateSkill(UUID id, SkillDto skillDto) {
         Skill existingSkill = skillRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy skill với id: " + id));
+        // Danh sách theo robot model cũ (nếu đổi) và index theo code/tên cũ cũng phải làm mới
+        bumpListGeneration(existingSkill);
+        evictIndex(existingSkill);
 
         existingSkill.setName(skillDto.getName());
         existingSkill.setCode(skillDto.getCode());
@@ -162,6 +172,8 @@ public class SkillServiceImpl implements SkillService {
         existingSkill.setRobotModelId(skillDto.getRobotModelId());
 
         Skill updatedSkill = skillRepository.save(existingSkill);
+        bumpListGeneration(existingSkill);
+        evictIndex(existingSkill);
         return SkillMapper.toDto(updatedSkill);
     }
 
@@ -172,6 +184,9 @@ public class SkillServiceImpl implements SkillService {
     public SkillDto patchUpdateSkill(UUID id, SkillDto skillDto) {
         Skill existingSkill = skillRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy skill với id: " + id));
+        // Danh sách theo robot model cũ (nếu đổi) và index theo code/tên cũ cũng phải làm mới
+        bumpListGeneration(existingSkill);
+        evictIndex(existingSkill);
 
         if (skillDto.getName() != null) {
             existingSkill.setName(skillDto.getName());
@@ -196,6 +211,8 @@ public class SkillServiceImpl implements SkillService {
         existingSkill.setLastUpdated(LocalDateTime.now());
 
         Skill updatedSkill = skillRepository.save(existingSkill);
+        bumpListGeneration(existingSkill);
+        evictIndex(existingSkill);
         return SkillMapper.toDto(updatedSkill);
 
     }
@@ -210,12 +227,17 @@ public class SkillServiceImpl implements SkillService {
         existingSkill.setStatus(status);
         existingSkill.setLastUpdated(LocalDateTime.now());
         Skill updatedSkill = skillRepository.save(existingSkill);
+        bumpListGeneration(existingSkill);
+        evictIndex(existingSkill);
         return SkillMapper.toDto(updatedSkill);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"skills", "skills_list"}, key = "#id", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "skills", key = "#id"),
+            @CacheEvict(value = "skills_list", allEntries = true)
+    })
     public String deleteSkill(UUID id) {
         Skill existingSkill = skillRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy skill với id: " + id));
@@ -223,6 +245,23 @@ public class SkillServiceImpl implements SkillService {
         existingSkill.setStatus(0);
         existingSkill.setLastUpdated(LocalDateTime.now());
         skillRepository.save(existingSkill);
+        bumpListGeneration(existingSkill);
+        evictIndex(existingSkill);
         return "skill deleted successfully";
     }
+
+    private SkillDto loadById(UUID id) {
+        Skill skill = skillRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy skill với id: " + id));
+        return SkillMapper.toDto(skill);
+    }
+
+    // skills_list không có robot model trong key nên vẫn evict allEntries; danh sách theo model dùng generation
+    private void bumpListGeneration(Skill skill) {
+        cacheGenerations.bump("skills_by_model", "model", skill.getRobotModelId());
+    }
+
+    private void evictIndex(Skill skill) {
+        cacheIndex.evict("skills", "name", skill.getName(), "code", skill.getCode());
+    }
 }
@@ -0,0 +1,108 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheGenerationsTest {
+
+    @Mock
+    StringRedisTemplate redisTemplate;
+
+    @Mock
+    ValueOperations<String, String> valueOperations;
+
+    CacheInvalidationBus bus;
+    CacheGenerations generations;
+
+    @BeforeEach
+    void setUp() {
+        bus = new CacheInvalidationBus(redisTemplate, "cache:invalidate");
+        generations = new CacheGenerations(redisTemplate, bus, Duration.ofDays(1), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void version_usesFirstNonNullDimension() {
+        UUID accountId = UUID.randomUUID();
+        UUID modelId = UUID.randomUUID();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("cache_gen:activities_list:account:" + accountId)).thenReturn("3");
+        when(valueOperations.get("cache_gen:activities_list:model:" + modelId)).thenReturn("7");
+
+        assertEquals("g3", generations.version("activities_list", "account", accountId, "model", modelId));
+        assertEquals("g7", generations.version("activities_list", "account", null, "model", modelId));
+        assertEquals("g0", generations.version("activities_list", "account", null, "model", null));
+
+        // Lần đọc sau lấy từ bộ nhớ trong process
+        generations.version("activities_list", "account", accountId, "model", modelId);
+        verify(valueOperations, times(1)).get("cache_gen:activities_list:account:" + accountId);
+    }
+
+    @Test
+    void bump_incrementsAllAndEachScope() {
+        UUID accountId = UUID.randomUUID();
+        UUID otherAccountId = UUID.randomUUID();
+        UUID modelId = UUID.randomUUID();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment("cache_gen:activities_list:all")).thenReturn(1L);
+        when(valueOperations.increment("cache_gen:activities_list:account:" + accountId)).thenReturn(5L);
+        when(valueOperations.increment("cache_gen:activities_list:model:" + modelId)).thenReturn(2L);
+        when(valueOperations.get("cache_gen:activities_list:account:" + otherAccountId)).thenReturn("4");
+
+        generations.bump("activities_list", "account", accountId, "model", modelId);
+
+        assertEquals("g5", generations.version("activities_list", "account", accountId));
+        assertEquals("g2", generations.version("activities_list", "model", modelId));
+        assertEquals("g1", generations.version("activities_list"));
+        // Account khác không bị ảnh hưởng
+        assertEquals("g4", generations.version("activities_list", "account", otherAccountId));
+        verify(redisTemplate).expire("cache_gen:activities_list:all", Duration.ofDays(1));
+        verify(redisTemplate, times(3)).convertAndSend(eq("cache:invalidate"), contains("\nE\ncache_generations\ncache_gen:activities_list:"));
+    }
+
+    @Test
+    void bump_insideTransaction_waitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            generations.bump("qr_codes_list", "account", null);
+            verifyNoInteractions(redisTemplate);
+
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(valueOperations).increment("cache_gen:qr_codes_list:all");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidationFromOtherPod_rereadsGeneration() {
+        UUID modelId = UUID.randomUUID();
+        String key = "cache_gen:actions_list:model:" + modelId;
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(key)).thenReturn("1", "2");
+
+        assertEquals("g1", generations.version("actions_list", "model", modelId));
+        String body = "other-pod\nE\ncache_generations\n" + key;
+        bus.onMessage(new DefaultMessage("cache:invalidate".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals("g2", generations.version("actions_list", "model", modelId));
+    }
+}
@@ -0,0 +1,111 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import com.alpha_code.alpha_code_activity_service.dto.ActionDto;
+import com.alpha_code.alpha_code_activity_service.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheIndexTest {
+
+    ConcurrentMapCacheManager cacheManager;
+    CacheIndex cacheIndex;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager("actions", "actions_index");
+        cacheIndex = new CacheIndex(cacheManager);
+    }
+
+    @Test
+    void get_indexMiss_storesIdAndRecordUnderId() {
+        ActionDto action = action("WAVE_HAND");
+
+        ActionDto result = cacheIndex.get("actions", "code", "WAVE_HAND", () -> action, ActionDto::getId,
+                id -> fail("không được load theo id khi vừa tra theo code"));
+
+        assertSame(action, result);
+        assertEquals(action.getId().toString(), cacheManager.getCache("actions_index").get("code:wave_hand", String.class));
+        assertSame(action, cacheManager.getCache("actions").get(action.getId(), ActionDto.class));
+    }
+
+    @Test
+    void get_indexHit_readsSharedIdEntry() {
+        ActionDto action = action("WAVE_HAND");
+        AtomicInteger lookups = new AtomicInteger();
+        cacheIndex.get("actions", "code", "WAVE_HAND", () -> {
+            lookups.incrementAndGet();
+            return action;
+        }, ActionDto::getId, id -> null);
+
+        // @CachePut theo id sau khi cập nhật: tra theo code (khác hoa/thường) thấy ngay bản mới
+        ActionDto updated = action("WAVE_HAND");
+        updated.setId(action.getId());
+        cacheManager.getCache("actions").put(action.getId(), updated);
+
+        ActionDto result = cacheIndex.get("actions", "code", "wave_hand", () -> {
+            lookups.incrementAndGet();
+            return action;
+        }, ActionDto::getId, id -> null);
+
+        assertSame(updated, result);
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void get_indexHit_idEntryEvicted_loadsById() {
+        ActionDto action = action("WAVE_HAND");
+        cacheIndex.get("actions", "code", "WAVE_HAND", () -> action, ActionDto::getId, id -> null);
+        cacheManager.getCache("actions").evict(action.getId());
+
+        ActionDto reloaded = action("WAVE_HAND");
+        ActionDto result = cacheIndex.get("actions", "code", "WAVE_HAND", () -> fail("index đã có id"), ActionDto::getId,
+                id -> {
+                    assertEquals(action.getId(), id);
+                    return reloaded;
+                });
+
+        assertSame(reloaded, result);
+    }
+
+    @Test
+    void get_notFound_rethrowsOriginalException() {
+        assertThrows(ResourceNotFoundException.class, () -> cacheIndex.get("actions", "code", "MISSING",
+                () -> {
+                    throw new ResourceNotFoundException("Action not found with code: MISSING");
+                }, ActionDto::getId, id -> null));
+        assertNull(cacheManager.getCache("actions_index").get("code:missing"));
+    }
+
+    @Test
+    void evict_insideTransaction_waitsForCommit() {
+        cacheManager.getCache("actions_index").put("name:wave hand", UUID.randomUUID().toString());
+        cacheManager.getCache("actions_index").put("code:wave_hand", UUID.randomUUID().toString());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheIndex.evict("actions", "name", "Wave Hand", "code", "WAVE_HAND", "code", null);
+            assertNotNull(cacheManager.getCache("actions_index").get("name:wave hand"));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertNull(cacheManager.getCache("actions_index").get("name:wave hand"));
+            assertNull(cacheManager.getCache("actions_index").get("code:wave_hand"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static ActionDto action(String code) {
+        ActionDto action = new ActionDto();
+        action.setId(UUID.randomUUID());
+        action.setCode(code);
+        return action;
+    }
+}
@@ -0,0 +1,187 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import com.alpha_code.alpha_code_activity_service.dto.ActionDto;
+import com.alpha_code.alpha_code_activity_service.dto.ActivityDto;
+import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class CacheValueSerializerTest {
+
+    private final CacheValueSerializer json = new CacheValueSerializer(Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build());
+
+    private final CacheValueSerializer smile = new CacheValueSerializer(Jackson2ObjectMapperBuilder.json()
+            .factory(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build())
+            .build());
+
+    private final JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer();
+
+    @Test
+    void roundTrip_pagedResultKeepsElementTypeAndReadOnlyFields() {
+        for (CacheValueSerializer serializer : List.of(json, smile)) {
+            PagedResult<ActionDto> page = page(3);
+
+            @SuppressWarnings("unchecked")
+            PagedResult<ActionDto> copy = (PagedResult<ActionDto>) serializer.deserialize(serializer.serialize(page));
+
+            assertEquals(page, copy);
+            assertInstanceOf(ActionDto.class, copy.getData().get(0));
+            // id, createdDate là READ_ONLY với API nhưng vẫn phải được lưu trong cache
+            assertNotNull(copy.getData().get(0).getId());
+            assertNotNull(copy.getData().get(0).getCreatedDate());
+        }
+    }
+
+    @Test
+    void roundTrip_activityWithJsonData() {
+        ActivityDto activity = activity();
+
+        for (CacheValueSerializer serializer : List.of(json, smile)) {
+            assertEquals(activity, serializer.deserialize(serializer.serialize(activity)));
+        }
+    }
+
+    @Test
+    void roundTrip_immutableListAndNullValue() {
+        List<ActionDto> actions = List.of(action(0), action(1));
+
+        for (CacheValueSerializer serializer : List.of(json, smile)) {
+            assertEquals(actions, serializer.deserialize(serializer.serialize(actions)));
+            assertSame(NullValue.INSTANCE, serializer.deserialize(serializer.serialize(NullValue.INSTANCE)));
+        }
+    }
+
+    @Test
+    void roundTrip_refreshableEntryKeepsValueType() {
+        RefreshableEntry entry = new RefreshableEntry(page(2), System.currentTimeMillis());
+
+        for (CacheValueSerializer serializer : List.of(json, smile)) {
+            RefreshableEntry copy = (RefreshableEntry) serializer.deserialize(serializer.serialize(entry));
+            assertEquals(entry, copy);
+            assertInstanceOf(PagedResult.class, copy.getValue());
+        }
+    }
+
+    @Test
+    void json_shortensApplicationClassNames() {
+        String payload = new String(json.serialize(action(0)));
+
+        assertTrue(payload.contains("\"@class\":\"~.dto.ActionDto\""), payload);
+    }
+
+    @Test
+    void smile_payloadSmallerThanJdk() {
+        for (Map.Entry<String, Object> sample : samples().entrySet()) {
+            int jdkSize = jdk.serialize(sample.getValue()).length;
+            int smileSize = smile.serialize(sample.getValue()).length;
+
+            assertTrue(smileSize < jdkSize, sample.getKey() + ": smile " + smileSize + "B >= jdk " + jdkSize + "B");
+        }
+    }
+
+    /**
+     * So sánh kích thước payload và thời gian serialize + deserialize với JDK serialization, chỉ ghi ra log.
+     * Không chạy trong {@code mvn test} (vòng lặp đo mất vài giây và kết quả phụ thuộc máy);
+     * chạy tay bằng {@code mvn test -Dtest=CacheValueSerializerTest -Dbenchmark=true}.
+     */
+    @Test
+    @Tag("benchmark")
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_payloadSizeAndRoundTripTime() {
+        for (Map.Entry<String, Object> sample : samples().entrySet()) {
+            log.info("{}: size jdk={}B json={}B smile={}B | round trip jdk={}µs json={}µs smile={}µs",
+                    sample.getKey(),
+                    jdk.serialize(sample.getValue()).length,
+                    json.serialize(sample.getValue()).length,
+                    smile.serialize(sample.getValue()).length,
+                    roundTripMicros(jdk, sample.getValue()),
+                    roundTripMicros(json, sample.getValue()),
+                    roundTripMicros(smile, sample.getValue()));
+        }
+    }
+
+    private static Map<String, Object> samples() {
+        return Map.of(
+                "PagedResult<ActionDto>(20)", page(20),
+                "ActivityDto", activity());
+    }
+
+    private static double roundTripMicros(RedisSerializer<Object> serializer, Object value) {
+        for (int i = 0; i < 2_000; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+        int iterations = 5_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+        return (System.nanoTime() - start) / 1_000.0 / iterations;
+    }
+
+    private static PagedResult<ActionDto> page(int size) {
+        List<ActionDto> actions = new ArrayList<>();
+        for (int i = 0; i < size; i++) actions.add(action(i));
+        // getContent() trả về list chỉ đọc, giống dữ liệu thật từ repository
+        return new PagedResult<>(new PageImpl<>(actions, PageRequest.of(0, size), 100));
+    }
+
+    private static ActionDto action(int i) {
+        return ActionDto.builder()
+                .id(UUID.randomUUID())
+                .createdDate(LocalDateTime.of(2025, 1, 1, 8, 0).plusMinutes(i))
+                .lastUpdated(LocalDateTime.of(2025, 2, 1, 8, 0).plusMinutes(i))
+                .name("Action " + i)
+                .code("action_" + i)
+                .description("Robot thực hiện động tác số " + i)
+                .duration(10 + i)
+                .icon("https://cdn.example.com/icons/action_" + i + ".png")
+                .status(1)
+                .canInterrupt(i % 2 == 0)
+                .robotModelId(UUID.fromString("6f1c2a1e-6b0a-4a4e-9a55-0c2f1d2e3b4a"))
+                .robotModelName("Alpha Mini")
+                .type(1)
+                .build();
+    }
+
+    private static ActivityDto activity() {
+        ObjectNode data = JsonNodeFactory.instance.objectNode();
+        ArrayNode steps = data.putArray("steps");
+        steps.addObject().put("action", "wave").put("repeat", 2);
+        steps.addObject().put("dance", "happy");
+        return ActivityDto.builder()
+                .id(UUID.randomUUID())
+                .name("Bài học buổi sáng")
+                .type("lesson")
+                .data(data)
+                .createdDate(LocalDateTime.of(2025, 1, 1, 8, 0))
+                .status(1)
+                .accountId(UUID.randomUUID())
+                .robotModelId(UUID.randomUUID())
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import com.alpha_code.alpha_code_activity_service.repository.ActionRepository;
+import com.alpha_code.alpha_code_activity_service.repository.ActivityRepository;
+import com.alpha_code.alpha_code_activity_service.repository.DanceRepository;
+import com.alpha_code.alpha_code_activity_service.repository.ExpressionRepository;
+import com.alpha_code.alpha_code_activity_service.repository.ExtendedActionRepository;
+import com.alpha_code.alpha_code_activity_service.repository.SkillRepository;
+import com.alpha_code.alpha_code_activity_service.service.ActionService;
+import com.alpha_code.alpha_code_activity_service.service.ActivityService;
+import com.alpha_code.alpha_code_activity_service.service.DanceService;
+import com.alpha_code.alpha_code_activity_service.service.ExpressionService;
+import com.alpha_code.alpha_code_activity_service.service.ExtendedActionService;
+import com.alpha_code.alpha_code_activity_service.service.SkillService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogCacheWarmerTest {
+
+    @Mock
+    ActionRepository actionRepository;
+
+    @Mock
+    DanceRepository danceRepository;
+
+    @Mock
+    ExpressionRepository expressionRepository;
+
+    @Mock
+    SkillRepository skillRepository;
+
+    @Mock
+    ExtendedActionRepository extendedActionRepository;
+
+    @Mock
+    ActivityRepository activityRepository;
+
+    @Mock
+    ActionService actionService;
+
+    @Mock
+    DanceService danceService;
+
+    @Mock
+    ExpressionService expressionService;
+
+    @Mock
+    SkillService skillService;
+
+    @Mock
+    ExtendedActionService extendedActionService;
+
+    @Mock
+    ActivityService activityService;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void warmUp_loadsEveryCatalogPerRobotModel() {
+        UUID model = UUID.randomUUID();
+        UUID otherModel = UUID.randomUUID();
+        when(actionRepository.findActiveRobotModelIds()).thenReturn(List.of(model, otherModel));
+        when(danceRepository.findActiveRobotModelIds()).thenReturn(List.of(model));
+        when(expressionRepository.findActiveRobotModelIds()).thenReturn(List.of(model));
+        when(skillRepository.findActiveRobotModelIds()).thenReturn(List.of(model));
+        when(extendedActionRepository.findActiveRobotModelIds()).thenReturn(List.of(model));
+        when(activityRepository.findActiveTypesAndRobotModels()).thenReturn(List.of(typeAndModel("dance", model)));
+        // Một model lỗi không làm hỏng cả warm-up
+        when(danceService.getAllByRobotModelId(model)).thenThrow(new RuntimeException("robot service down"));
+
+        assertTrue(warmer(Duration.ofSeconds(5)).warmUp());
+
+        verify(actionService).getActionByRobotModelId(model, 1, 10);
+        verify(actionService).getActionByRobotModelId(otherModel, 1, 10);
+        verify(expressionService).getByRobotModelId(model);
+        verify(skillService).getSkillByRobotModelId(model, 1, 10);
+        verify(extendedActionService).getExtendedActionByRobotModelId(model, 1, 10);
+        verify(activityService).getByType("dance", model);
+        assertEquals(1L, meterRegistry.get("cache.warmup").tag("completed", "true").timer().count());
+    }
+
+    @Test
+    void warmUp_budgetExceeded_returnsWithoutWaiting() throws Exception {
+        UUID model = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+        when(actionRepository.findActiveRobotModelIds()).thenReturn(List.of(model));
+        when(actionService.getActionByRobotModelId(any(), anyInt(), anyInt())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+
+        long start = System.nanoTime();
+        assertFalse(warmer(Duration.ofMillis(100)).warmUp());
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+        release.countDown();
+    }
+
+    private CatalogCacheWarmer warmer(Duration budget) {
+        return new CatalogCacheWarmer(actionRepository, danceRepository, expressionRepository, skillRepository,
+                extendedActionRepository, activityRepository, actionService, danceService, expressionService,
+                skillService, extendedActionService, activityService, meterRegistry, true, budget, 2, 10);
+    }
+
+    private static ActivityRepository.TypeAndRobotModel typeAndModel(String type, UUID model) {
+        return new ActivityRepository.TypeAndRobotModel() {
+            @Override
+            public String getType() {
+                return type;
+            }
+
+            @Override
+            public UUID getRobotModelId() {
+                return model;
+            }
+        };
+    }
+}
@@ -0,0 +1,236 @@
+package com.alpha_code.alpha_code_activity_service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LayeredCacheTest {
+
+    @Mock
+    StringRedisTemplate redisTemplate;
+
+    ConcurrentMapCache remote;
+    CacheInvalidationBus bus;
+    LayeredCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCache("actions", false);
+        bus = new CacheInvalidationBus(redisTemplate, "cache:invalidate");
+        cache = new LayeredCache("actions", Caffeine.newBuilder().build(), remote, bus, null, null);
+        bus.register("actions", cache);
+    }
+
+    @Test
+    void get_copiesRemoteValueToLocal() {
+        UUID id = UUID.randomUUID();
+        remote.put(id, "A");
+
+        assertEquals("A", cache.get(id, String.class));
+        remote.evict(id);
+
+        // Lần đọc sau trúng L1, không cần L2
+        assertEquals("A", cache.get(id, String.class));
+    }
+
+    @Test
+    void getWithLoader_concurrentMisses_loadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("page-1", () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "A";
+                })));
+            }
+            // Để các request còn lại kịp vào hàng chờ của lần load đầu
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("A", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals("A", remote.get("page-1", String.class));
+    }
+
+    @Test
+    void getWithLoader_leaderThrowsError_followersFailToo() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> cache.get("page-1", () -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    throw new AssertionError("loader broke");
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(AssertionError.class, e.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void getWithLoader_loaderFails_wrapsException() {
+        IllegalStateException failure = new IllegalStateException("db down");
+
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("k", () -> { throw failure; }));
+
+        assertSame(failure, e.getCause());
+        assertNull(remote.get("k"));
+    }
+
+    @Test
+    void getWithLoader_otherPodLoading_waitsForRemoteValue(@Mock ValueOperations<String, String> valueOperations) {
+        CacheLoadLock loadLock = new CacheLoadLock(redisTemplate, Duration.ofSeconds(10), Duration.ofSeconds(2), Duration.ofMillis(10));
+        cache = new LayeredCache("actions", Caffeine.newBuilder().build(), remote, bus, loadLock, null);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("cache_lock:actions:k"), anyString(), any(Duration.class))).thenReturn(false);
+        when(redisTemplate.hasKey("cache_lock:actions:k")).thenAnswer(inv -> {
+            // Pod giữ khoá ghi xong L2
+            remote.put("k", "B");
+            return true;
+        });
+
+        assertEquals("B", cache.get("k", () -> fail("không được load khi pod khác đang load")));
+    }
+
+    @Test
+    void getWithLoader_lockAcquired_loadsAndReleases(@Mock ValueOperations<String, String> valueOperations) {
+        CacheLoadLock loadLock = new CacheLoadLock(redisTemplate, Duration.ofSeconds(10), Duration.ofSeconds(2), Duration.ofMillis(10));
+        cache = new LayeredCache("actions", Caffeine.newBuilder().build(), remote, bus, loadLock, null);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("cache_lock:actions:k"), anyString(), any(Duration.class))).thenReturn(true);
+
+        assertEquals("A", cache.get("k", () -> "A"));
+
+        assertEquals("A", remote.get("k", String.class));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("cache_lock:actions:k")), anyString());
+    }
+
+    @Test
+    void getWithLoader_pastSoftTtl_servesStaleAndRefreshes() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RefreshAhead refreshAhead = new RefreshAhead("actions", Duration.ofHours(1), Runnable::run, meterRegistry);
+        cache = new LayeredCache("actions", Caffeine.newBuilder().build(), remote, bus, null, refreshAhead);
+        long twoHoursAgo = System.currentTimeMillis() - Duration.ofHours(2).toMillis();
+        remote.put("k", new RefreshableEntry("old", twoHoursAgo));
+
+        // Trả ngay bản cũ; executor chạy đồng bộ nên L2 đã có bản mới sau lời gọi
+        assertEquals("old", cache.get("k", () -> "new"));
+
+        RefreshableEntry refreshed = (RefreshableEntry) remote.get("k").get();
+        assertEquals("new", refreshed.getValue());
+        assertTrue(refreshed.getLoadedAt() > twoHoursAgo);
+        assertEquals("new", cache.get("k", () -> fail("entry còn mới, không được load lại")));
+        assertEquals(1.0, meterRegistry.get("cache.refresh.stale").counter().count());
+        assertEquals(1L, meterRegistry.get("cache.refresh").tag("result", "success").timer().count());
+    }
+
+    @Test
+    void refreshAhead_plainReadsAndWritesHideEnvelope() {
+        RefreshAhead refreshAhead = new RefreshAhead("actions", Duration.ofHours(1), Runnable::run, new SimpleMeterRegistry());
+        cache = new LayeredCache("actions", Caffeine.newBuilder().build(), remote, bus, null, refreshAhead);
+
+        cache.put("k", "A");
+
+        assertInstanceOf(RefreshableEntry.class, remote.get("k").get());
+        assertEquals("A", cache.get("k").get());
+        assertEquals("A", cache.get("k", String.class));
+    }
+
+    @Test
+    void putAndEvict_updateBothLevelsAndPublish() {
+        cache.put("k", "A");
+        assertEquals("A", remote.get("k", String.class));
+
+        cache.evict("k");
+        assertNull(remote.get("k"));
+        assertNull(cache.get("k"));
+        verify(redisTemplate, times(2)).convertAndSend(eq("cache:invalidate"), contains("\nE\nactions\nk"));
+    }
+
+    @Test
+    void onMessage_fromOtherPod_dropsLocalOnly() {
+        remote.put("k", "A");
+        cache.get("k");
+        remote.put("k", "B");
+
+        bus.onMessage(message("other-pod\nE\nactions\nk"), null);
+
+        assertEquals("B", cache.get("k", String.class));
+    }
+
+    @Test
+    void onMessage_clear_dropsAllLocalEntries() {
+        remote.put("k1", "A");
+        remote.put("k2", "A");
+        cache.get("k1");
+        cache.get("k2");
+        remote.clear();
+
+        bus.onMessage(message("other-pod\nC\nactions"), null);
+
+        assertNull(cache.get("k1"));
+        assertNull(cache.get("k2"));
+    }
+
+    @Test
+    void publishFailure_doesNotFailWrite() {
+        doThrow(new RuntimeException("redis down")).when(redisTemplate).convertAndSend(anyString(), anyString());
+
+        cache.put("k", "A");
+
+        assertEquals("A", remote.get("k", String.class));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("cache:invalidate".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,68 @@
+package com.alpha_code.alpha_code_activity_service.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachePolicyPropertiesTest {
+
+    @Test
+    void resolve_mergesCacheSpecificPolicyWithDefaults() {
+        CachePolicyProperties properties = new CachePolicyProperties();
+        properties.getDefaults().setTtl(Duration.ofMinutes(10));
+        properties.getDefaults().setL1Ttl(Duration.ofSeconds(30));
+        CachePolicyProperties.Policy actions = new CachePolicyProperties.Policy();
+        actions.setTtl(Duration.ofHours(6));
+        actions.setKeyPrefix("catalog:");
+        properties.getCaches().put("actions", actions);
+
+        CachePolicyProperties.Policy resolved = properties.resolve("actions");
+        assertEquals(Duration.ofHours(6), resolved.getTtl());
+        assertEquals(Duration.ofSeconds(30), resolved.getL1Ttl());
+        assertEquals(10_000L, resolved.getL1MaxSize());
+        assertEquals("catalog:", resolved.getKeyPrefix());
+        assertFalse(resolved.getCacheNullValues());
+
+        assertEquals(Duration.ofMinutes(10), properties.resolve("qr_codes").getTtl());
+    }
+
+    @Test
+    void resolve_l1NeverOutlivesRedis() {
+        CachePolicyProperties properties = new CachePolicyProperties();
+        CachePolicyProperties.Policy list = new CachePolicyProperties.Policy();
+        list.setTtl(Duration.ofSeconds(5));
+        properties.getCaches().put("qr_codes_list", list);
+
+        assertEquals(Duration.ofSeconds(5), properties.resolve("qr_codes_list").getL1Ttl());
+    }
+
+    @Test
+    void resolve_refreshAfterOnlyWhenShorterThanTtl() {
+        CachePolicyProperties properties = new CachePolicyProperties();
+        CachePolicyProperties.Policy actions = new CachePolicyProperties.Policy();
+        actions.setTtl(Duration.ofHours(6));
+        actions.setRefreshAfter(Duration.ofHours(1));
+        properties.getCaches().put("actions", actions);
+        CachePolicyProperties.Policy skills = new CachePolicyProperties.Policy();
+        skills.setTtl(Duration.ofHours(1));
+        skills.setRefreshAfter(Duration.ofHours(2));
+        properties.getCaches().put("skills", skills);
+
+        assertEquals(Duration.ofHours(1), properties.resolve("actions").getRefreshAfter());
+        assertNull(properties.resolve("skills").getRefreshAfter());
+        assertNull(properties.resolve("qr_codes").getRefreshAfter());
+    }
+
+    @Test
+    void resolve_refreshAfterOnlyForContextFreeCaches() {
+        CachePolicyProperties properties = new CachePolicyProperties();
+        properties.getDefaults().setTtl(Duration.ofHours(6));
+        properties.getDefaults().setRefreshAfter(Duration.ofHours(1));
+
+        assertEquals(Duration.ofHours(1), properties.resolve("dances").getRefreshAfter());
+        assertNull(properties.resolve("qr_codes").getRefreshAfter());
+        assertNull(properties.resolve("activities").getRefreshAfter());
+    }
+}
@@ -0,0 +1,120 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import boofcv.struct.image.GrayU8;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LuminanceDataBufferTest {
+
+    // Nửa trái xanh lá (20,200,40) → 127, nửa phải đỏ (200,30,30) → 81; 1/4 dưới trong suốt (ảnh RGBA)
+    private static final int GREEN_LUMA = 127;
+    private static final int RED_LUMA = 81;
+
+    @Test
+    void read_rgbPng_writesLuminance() throws Exception {
+        GrayU8 gray = readPng(png(sample(BufferedImage.TYPE_INT_RGB), false), false, 1);
+
+        assertEquals(GREEN_LUMA, gray.get(10, 10), 1);
+        assertEquals(RED_LUMA, gray.get(50, 10), 1);
+    }
+
+    @Test
+    void read_rgbaPng_compositesTransparentPixelsOnWhite() throws Exception {
+        GrayU8 gray = readPng(png(sample(BufferedImage.TYPE_INT_ARGB), false), true, 1);
+
+        assertEquals(GREEN_LUMA, gray.get(10, 10), 1);
+        assertEquals(255, gray.get(50, 56));
+    }
+
+    @Test
+    void read_subsampledAndInterlacedPng() throws Exception {
+        GrayU8 gray = readPng(png(sample(BufferedImage.TYPE_INT_RGB), true), false, 3);
+
+        assertEquals(22, gray.width);
+        assertEquals(GREEN_LUMA, gray.get(3, 3), 1);
+        assertEquals(RED_LUMA, gray.get(17, 3), 1);
+    }
+
+    @Test
+    void decode_colorPngQrCode() throws Exception {
+        BufferedImage qr = ImageIO.read(new ByteArrayInputStream(
+                new QrImageRenderer(300, 4, ErrorCorrectionLevel.L).renderPng("ACT-123")));
+        BufferedImage color = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = color.createGraphics();
+        g.drawImage(qr, 0, 0, null);
+        g.dispose();
+
+        QrDecoderEngine engine = new QrDecoderEngine(new QrDetectorPool(1, 1000, 1, new SimpleMeterRegistry()),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "maxWidth", 4096);
+        ReflectionTestUtils.setField(engine, "maxHeight", 4096);
+        ReflectionTestUtils.setField(engine, "maxSourcePixels", 40_000_000L);
+        ReflectionTestUtils.setField(engine, "coarseEdge", 1024);
+
+        assertEquals(List.of("ACT-123"), engine.decode(new ByteArrayInputStream(png(color, false))));
+    }
+
+    private static GrayU8 readPng(byte[] png, boolean alpha, int step) throws Exception {
+        ImageReader reader = ImageIO.getImageReadersByFormatName("png").next();
+        try {
+            reader.setInput(ImageIO.createImageInputStream(new ByteArrayInputStream(png)));
+            int width = (reader.getWidth(0) + step - 1) / step;
+            int height = (reader.getHeight(0) + step - 1) / step;
+            GrayU8 gray = new GrayU8(width, height);
+
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(step, step, 0, 0);
+            param.setDestination(LuminanceDataBuffer.image(gray, alpha));
+            reader.read(0, param);
+            return gray;
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static BufferedImage sample(int type) {
+        BufferedImage image = new BufferedImage(64, 64, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(200, 30, 30));
+        g.fillRect(0, 0, 64, 64);
+        g.setColor(new Color(20, 200, 40));
+        g.fillRect(0, 0, 32, 64);
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 48, 64, 16);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] png(BufferedImage image, boolean interlaced) throws Exception {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setProgressiveMode(interlaced ? ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,22 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.alpha_code.alpha_code_activity_service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QrDetectorPoolTest {
+
+    @Test
+    void acquire_poolExhausted_throwsServiceUnavailable() {
+        QrDetectorPool pool = new QrDetectorPool(1, 10, 3, new SimpleMeterRegistry());
+        QrDetectorContext context = pool.acquire();
+
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class, pool::acquire);
+        assertEquals(3, e.getRetryAfterSeconds());
+
+        pool.release(context);
+        assertSame(context, pool.acquire());
+    }
+}
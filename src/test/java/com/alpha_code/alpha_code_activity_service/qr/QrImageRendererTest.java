@@ -0,0 +1,55 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QrImageRendererTest {
+
+    private final QrImageRenderer renderer = new QrImageRenderer(300, 4, ErrorCorrectionLevel.L);
+
+    @Test
+    void renderPng_roundTripsThroughReader() throws Exception {
+        byte[] png = renderer.renderPng("ACT-123");
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(300, image.getWidth());
+        assertEquals(300, image.getHeight());
+
+        var result = new QRCodeReader().decode(
+                new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image))));
+        assertEquals("ACT-123", result.getText());
+    }
+
+    @Test
+    void renderPng_reusesBuffersAcrossCalls() throws Exception {
+        byte[] first = renderer.renderPng("A");
+        renderer.renderPng("a much longer payload that needs a bigger QR version than the first one");
+        assertArrayEquals(first, renderer.renderPng("A"));
+    }
+
+    @Test
+    void renderPng_higherErrorCorrection_stillDecodes() throws Exception {
+        byte[] png = renderer.renderPng("ACT-123", 400, ErrorCorrectionLevel.H);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(400, image.getWidth());
+
+        var result = new QRCodeReader().decode(
+                new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image))));
+        assertEquals("ACT-123", result.getText());
+    }
+
+    @Test
+    void renderPng_emptyText_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> renderer.renderPng(""));
+    }
+}
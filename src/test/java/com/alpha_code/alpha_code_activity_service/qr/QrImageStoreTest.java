@@ -0,0 +1,62 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.alpha_code.alpha_code_activity_service.service.S3Service;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QrImageStoreTest {
+
+    @Mock
+    S3Service s3Service;
+
+    QrImageStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new QrImageStore(new QrImageRenderer(300, 4, ErrorCorrectionLevel.L), s3Service,
+                100, Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void key_dependsOnCodeAndRenderSettings() {
+        String key = store.key("ABC");
+
+        assertTrue(key.matches("qrcodes/[0-9a-f]{64}\\.png"));
+        assertEquals(key, store.key("ABC"));
+        assertNotEquals(key, store.key("ABD"));
+        assertNotEquals(key, new QrImageRenderer(400, 4, ErrorCorrectionLevel.L).imageKey("ABC"));
+    }
+
+    @Test
+    void isStored_remembersExistingObjects() {
+        when(s3Service.exists("qrcodes/a.png")).thenReturn(true);
+
+        assertTrue(store.isStored("qrcodes/a.png"));
+        assertTrue(store.isStored("qrcodes/a.png"));
+
+        verify(s3Service, times(1)).exists("qrcodes/a.png");
+    }
+
+    @Test
+    void isStored_missingOrErrorIsAskedAgain() {
+        when(s3Service.exists("qrcodes/a.png")).thenReturn(false).thenThrow(new RuntimeException("S3 down"));
+
+        assertFalse(store.isStored("qrcodes/a.png"));
+        assertFalse(store.isStored("qrcodes/a.png"));
+
+        store.markStored("qrcodes/a.png");
+        assertTrue(store.isStored("qrcodes/a.png"));
+        verify(s3Service, times(2)).exists("qrcodes/a.png");
+    }
+}
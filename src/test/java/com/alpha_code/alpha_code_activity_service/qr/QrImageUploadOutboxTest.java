@@ -0,0 +1,172 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.entity.QrCode;
+import com.alpha_code.alpha_code_activity_service.entity.QrImageOutbox;
+import com.alpha_code.alpha_code_activity_service.enums.QrImageStatusEnum;
+import com.alpha_code.alpha_code_activity_service.mapper.QrCodeMapper;
+import com.alpha_code.alpha_code_activity_service.repository.QrCodeRepository;
+import com.alpha_code.alpha_code_activity_service.repository.QrImageOutboxRepository;
+import com.alpha_code.alpha_code_activity_service.service.S3Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QrImageUploadOutboxTest {
+
+    @Mock
+    QrImageOutboxRepository outboxRepository;
+
+    @Mock
+    QrCodeRepository qrCodeRepository;
+
+    @Mock
+    S3Service s3Service;
+
+    @Mock
+    QrImageStore qrImageStore;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    CacheGenerations cacheGenerations;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    QrImageUploadOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        outbox = new QrImageUploadOutbox(outboxRepository, qrCodeRepository, s3Service, qrImageStore,
+                new TransactionTemplate(transactionManager), new ConcurrentMapCacheManager(), cacheGenerations,
+                "async", 20, 3, Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofDays(7), meterRegistry);
+    }
+
+    @Test
+    void drain_uploadsAndMarksReady() {
+        QrImageOutbox entry = entry(0);
+        when(outboxRepository.findDueForUpdate(any(), eq(3), any())).thenReturn(List.of(entry));
+        when(s3Service.getObjectUrl("qrcodes/a.png")).thenReturn("https://bucket/qrcodes/a.png");
+        when(s3Service.uploadBytesAsync(any(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture("https://bucket/qrcodes/a.png"));
+        QrCode qrCode = new QrCode();
+        qrCode.setAccountId(UUID.randomUUID());
+        when(qrCodeRepository.findById(entry.getQrCodeId())).thenReturn(Optional.of(qrCode));
+
+        outbox.drain();
+
+        verify(s3Service).uploadBytesAsync(entry.getPayload(), "qrcodes/a.png", "image/png");
+        verify(qrImageStore).markStored("qrcodes/a.png");
+        verify(qrCodeRepository).updateImageStatus(entry.getQrCodeId(), "https://bucket/qrcodes/a.png",
+                QrImageStatusEnum.READY.getCode());
+        verify(outboxRepository).deleteById(entry.getId());
+        verify(cacheGenerations).bump("qr_codes_list", "account", qrCode.getAccountId());
+    }
+
+    @Test
+    void drain_uploadFails_schedulesRetry() {
+        QrImageOutbox entry = entry(0);
+        when(outboxRepository.findDueForUpdate(any(), anyInt(), any())).thenReturn(List.of(entry));
+        when(s3Service.uploadBytesAsync(any(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("S3 down")));
+
+        outbox.drain();
+
+        assertEquals(1, entry.getAttempts());
+        assertEquals("S3 down", entry.getLastError());
+        assertTrue(entry.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(outboxRepository).save(entry);
+        verify(outboxRepository, never()).deleteById(any());
+        verify(qrCodeRepository, never()).updateImageStatus(any(), any(), any());
+    }
+
+    @Test
+    void drain_lastAttemptFails_marksImageFailed() {
+        QrImageOutbox entry = entry(2);
+        when(outboxRepository.findDueForUpdate(any(), anyInt(), any())).thenReturn(List.of(entry));
+        when(s3Service.getObjectUrl("qrcodes/a.png")).thenReturn("https://bucket/qrcodes/a.png");
+        when(s3Service.uploadBytesAsync(any(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("S3 down")));
+
+        outbox.drain();
+
+        verify(qrCodeRepository).updateImageStatus(entry.getQrCodeId(), "https://bucket/qrcodes/a.png",
+                QrImageStatusEnum.FAILED.getCode());
+        assertEquals(3, entry.getAttempts());
+        assertNotNull(entry.getFailedAt());
+        verify(outboxRepository).save(entry);
+        assertEquals(1.0, meterRegistry.get("qr.image.upload.exhausted").counter().count());
+        assertEquals(1.0, meterRegistry.get("qr.image.upload.dead_letter").gauge().value());
+    }
+
+    @Test
+    void purgeDeadLetters_marksLegacyRowsDeletesExpiredAndUpdatesGauge() {
+        when(outboxRepository.countByFailedAtIsNotNull()).thenReturn(4L);
+
+        outbox.purgeDeadLetters();
+
+        verify(outboxRepository).markExhausted(any(), eq(3));
+        verify(outboxRepository).deleteFailedBefore(argThat(before ->
+                before.isBefore(LocalDateTime.now().minusDays(6)) && before.isAfter(LocalDateTime.now().minusDays(8))));
+        assertEquals(4.0, meterRegistry.get("qr.image.upload.dead_letter").gauge().value());
+    }
+
+    @Test
+    void purgeDeadLetters_syncMode_doesNotTouchOutbox() {
+        QrImageUploadOutbox sync = new QrImageUploadOutbox(outboxRepository, qrCodeRepository, s3Service, qrImageStore,
+                new TransactionTemplate(transactionManager), new ConcurrentMapCacheManager(), cacheGenerations,
+                "sync", 20, 3, Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofDays(7),
+                new SimpleMeterRegistry());
+
+        sync.purgeDeadLetters();
+
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    void toDto_failedImage_hidesUrl() {
+        QrCode qrCode = new QrCode();
+        qrCode.setImageUrl("https://bucket/qrcodes/a.png");
+        qrCode.setImageStatus(QrImageStatusEnum.FAILED.getCode());
+        assertNull(QrCodeMapper.toDto(qrCode).getImageUrl());
+
+        qrCode.setImageStatus(QrImageStatusEnum.READY.getCode());
+        assertEquals("https://bucket/qrcodes/a.png", QrCodeMapper.toDto(qrCode).getImageUrl());
+    }
+
+    private static QrImageOutbox entry(int attempts) {
+        return QrImageOutbox.builder()
+                .id(UUID.randomUUID())
+                .qrCodeId(UUID.randomUUID())
+                .qrCode("C")
+                .objectKey("qrcodes/a.png")
+                .payload(new byte[]{1, 2, 3})
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdDate(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.alpha_code.alpha_code_activity_service.qr;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QrPngCacheTest {
+
+    @Test
+    void get_rendersOncePerCode() throws Exception {
+        QrImageRenderer renderer = spy(new QrImageRenderer(300, 4, ErrorCorrectionLevel.L));
+        QrPngCache cache = new QrPngCache(renderer, 1 << 20, new SimpleMeterRegistry());
+
+        byte[] first = cache.get("ABC");
+        byte[] second = cache.get("ABC");
+
+        assertSame(first, second);
+        assertEquals(renderer.fingerprint("ABC"), cache.version("ABC"));
+        assertNotEquals(cache.version("ABC"), cache.version("ABD"));
+        verify(renderer, times(1)).renderPng("ABC");
+    }
+}
@@ -1,5 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.cache.CacheIndex;
 import com.alpha_code.alpha_code_activity_service.dto.ActionDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
 import com.alpha_code.alpha_code_activity_service.entity.Action;
@@ -11,7 +13,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -34,6 +38,13 @@ class ActionServiceImplTest {
     @Mock
     RobotServiceClient robotServiceClient;
 
+    @Mock
+    CacheGenerations cacheGenerations;
+
+    // Không cache: index đi thẳng xuống repository
+    @Spy
+    CacheIndex cacheIndex = new CacheIndex(new NoOpCacheManager());
+
     @InjectMocks
     ActionServiceImpl service;
 
@@ -232,6 +243,7 @@ class ActionServiceImplTest {
         savedAction.setCode("NEW_ACTION");
         savedAction.setStatus(1);
         savedAction.setCreatedDate(LocalDateTime.now());
+        savedAction.setRobotModelId(actionDto.getRobotModelId());
 
         when(actionRepository.save(any(Action.class))).thenReturn(savedAction);
 
@@ -242,6 +254,8 @@ class ActionServiceImplTest {
         verify(actionRepository).findByCodeIgnoreCaseAndStatusNot("NEW_ACTION", 0);
         verify(actionRepository).findByNameIgnoreCaseAndStatusNot("New Action", 0);
         verify(actionRepository).save(any(Action.class));
+        verify(cacheGenerations).bump("actions_list", "model", actionDto.getRobotModelId());
+        verify(cacheGenerations).bump("actions_by_model", "model", actionDto.getRobotModelId());
     }
 
     @Test
@@ -401,6 +415,8 @@ class ActionServiceImplTest {
         UUID id = UUID.randomUUID();
         Action existingAction = new Action();
         existingAction.setId(id);
+        existingAction.setName("Wave Hand");
+        existingAction.setCode("WAVE_HAND");
         existingAction.setStatus(1);
 
         when(actionRepository.findById(id)).thenReturn(Optional.of(existingAction));
@@ -412,6 +428,7 @@ class ActionServiceImplTest {
         assertTrue(result.contains("xóa thành công"));
         verify(actionRepository).findById(id);
         verify(actionRepository).save(any(Action.class));
+        verify(cacheIndex).evict("actions", "name", "Wave Hand", "code", "WAVE_HAND");
     }
 
     @Test
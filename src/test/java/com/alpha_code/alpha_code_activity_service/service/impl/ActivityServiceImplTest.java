@@ -1,5 +1,6 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
 import com.alpha_code.alpha_code_activity_service.dto.ActivityDto;
 import com.alpha_code.alpha_code_activity_service.entity.Activity;
 import com.alpha_code.alpha_code_activity_service.exception.ConflictException;
@@ -27,6 +28,9 @@ class ActivityServiceImplTest {
     @Mock
     ActivityRepository repository;
 
+    @Mock
+    CacheGenerations cacheGenerations;
+
     @InjectMocks
     ActivityServiceImpl service;
 
@@ -1,5 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.cache.CacheIndex;
 import com.alpha_code.alpha_code_activity_service.dto.DanceDto;
 import com.alpha_code.alpha_code_activity_service.entity.Dance;
 import com.alpha_code.alpha_code_activity_service.exception.ResourceNotFoundException;
@@ -9,7 +11,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.data.domain.PageImpl;
 
 import java.time.LocalDateTime;
@@ -30,6 +34,13 @@ class DanceServiceImplTest {
     @Mock
     RobotServiceClient robotServiceClient;
 
+    @Mock
+    CacheGenerations cacheGenerations;
+
+    // Không cache: index đi thẳng xuống repository
+    @Spy
+    CacheIndex cacheIndex = new CacheIndex(new NoOpCacheManager());
+
     @InjectMocks
     DanceServiceImpl service;
 
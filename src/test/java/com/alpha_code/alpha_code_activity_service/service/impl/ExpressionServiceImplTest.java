@@ -1,5 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.cache.CacheIndex;
 import com.alpha_code.alpha_code_activity_service.dto.ExpressionDto;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
 import com.alpha_code.alpha_code_activity_service.entity.Expression;
@@ -10,7 +12,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -33,6 +37,13 @@ class ExpressionServiceImplTest {
     @Mock
     RobotServiceClient robotServiceClient;
 
+    @Mock
+    CacheGenerations cacheGenerations;
+
+    // Không cache: index đi thẳng xuống repository
+    @Spy
+    CacheIndex cacheIndex = new CacheIndex(new NoOpCacheManager());
+
     @InjectMocks
     ExpressionServiceImpl service;
 
@@ -296,6 +307,8 @@ class ExpressionServiceImplTest {
         UUID id = UUID.randomUUID();
         Expression existingExpression = new Expression();
         existingExpression.setId(id);
+        existingExpression.setName("Happy");
+        existingExpression.setCode("HAPPY");
         existingExpression.setStatus(1);
 
         when(repository.findById(id)).thenReturn(Optional.of(existingExpression));
@@ -307,6 +320,7 @@ class ExpressionServiceImplTest {
         assertTrue(result.contains("deleted successfully"));
         verify(repository).findById(id);
         verify(repository).save(any(Expression.class));
+        verify(cacheIndex).evict("expressions", "name", "Happy", "code", "HAPPY");
     }
 
     @Test
@@ -0,0 +1,216 @@
+package com.alpha_code.alpha_code_activity_service.service.impl;
+
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.dto.QrBulkItemResultDto;
+import com.alpha_code.alpha_code_activity_service.dto.QrBulkJobDto;
+import com.alpha_code.alpha_code_activity_service.dto.QrCodeDto;
+import com.alpha_code.alpha_code_activity_service.entity.QrCode;
+import com.alpha_code.alpha_code_activity_service.enums.QrBulkJobStatusEnum;
+import com.alpha_code.alpha_code_activity_service.exception.ResourceNotFoundException;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageRenderer;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageStore;
+import com.alpha_code.alpha_code_activity_service.repository.QrCodeRepository;
+import com.alpha_code.alpha_code_activity_service.service.S3Service;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QrCodeBulkServiceImplTest {
+
+    @Mock
+    QrCodeRepository repository;
+
+    @Mock
+    QrImageRenderer qrImageRenderer;
+
+    @Mock
+    QrImageStore qrImageStore;
+
+    @Mock
+    S3Service s3Service;
+
+    @Mock
+    StringRedisTemplate redisTemplate;
+
+    @Mock
+    ValueOperations<String, String> valueOperations;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    CacheGenerations cacheGenerations;
+
+    QrCodeBulkServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new QrCodeBulkServiceImpl(repository, qrImageRenderer, qrImageStore, s3Service, redisTemplate,
+                new ObjectMapper().findAndRegisterModules(), new TransactionTemplate(transactionManager),
+                cacheGenerations, 10, 2, Duration.ofHours(1), 1, 1, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void startBulkCreate_emptyOrTooMany_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.startBulkCreate(List.of()));
+
+        List<QrCodeDto> tooMany = new ArrayList<>();
+        for (int i = 0; i < 11; i++) tooMany.add(dto("C" + i));
+        assertThrows(IllegalArgumentException.class, () -> service.startBulkCreate(tooMany));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void startBulkCreate_flagsDuplicatesWithOneQuery() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(repository.findExistingQrCodes(anyCollection())).thenReturn(List.of("TAKEN"));
+
+        QrBulkJobDto job = service.startBulkCreate(List.of(dto("A"), dto("TAKEN"), dto("A")));
+
+        assertEquals(3, job.getTotal());
+        assertEquals(2, job.getFailed());
+        assertEquals(QrBulkJobStatusEnum.PENDING.getCode(), job.getStatus());
+        verify(repository, times(1)).findExistingQrCodes(anyCollection());
+    }
+
+    @Test
+    void run_rendersUploadsAndBatchInsertsPerChunk() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(qrImageStore.key(anyString())).thenAnswer(inv -> "qrcodes/" + inv.getArgument(0) + ".png");
+        when(qrImageRenderer.renderPng(anyString())).thenReturn(new byte[]{1});
+        when(s3Service.uploadBytesAsync(any(), anyString(), anyString()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture("https://bucket/" + inv.getArgument(1)));
+        when(repository.saveAll(anyCollection())).thenAnswer(inv -> {
+            List<QrCode> saved = new ArrayList<>(inv.getArgument(0));
+            saved.forEach(q -> q.setId(UUID.randomUUID()));
+            return saved;
+        });
+
+        List<QrCodeDto> items = List.of(dto("A"), dto("B"), dto("C"));
+        QrBulkJobDto job = QrBulkJobDto.builder().jobId(UUID.randomUUID()).total(3).build();
+
+        service.run(job, items, List.of(0, 1, 2));
+
+        assertEquals(QrBulkJobStatusEnum.COMPLETED.getCode(), job.getStatus());
+        assertEquals(3, job.getSucceeded());
+        assertEquals(3, job.getProcessed());
+        assertTrue(job.getResults().stream().allMatch(QrBulkItemResultDto::isSuccess));
+        assertEquals(List.of(0, 1, 2), job.getResults().stream().map(QrBulkItemResultDto::getIndex).toList());
+        // chunk-size = 2 → 2 lần saveAll
+        verify(repository, times(2)).saveAll(anyCollection());
+        verify(qrImageStore).markStored("qrcodes/B.png");
+        // Mỗi account có QR trong job được làm mới danh sách một lần
+        for (QrCodeDto item : items) {
+            verify(cacheGenerations).bump("qr_codes_list", "account", item.getAccountId());
+        }
+    }
+
+    @Test
+    void run_imageAlreadyStored_skipsRenderAndUpload() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(qrImageStore.key("A")).thenReturn("qrcodes/a.png");
+        when(qrImageStore.isStored("qrcodes/a.png")).thenReturn(true);
+        when(s3Service.getObjectUrl("qrcodes/a.png")).thenReturn("https://bucket/qrcodes/a.png");
+        when(repository.saveAll(anyCollection())).thenAnswer(inv -> new ArrayList<>(inv.getArgument(0)));
+
+        QrBulkJobDto job = QrBulkJobDto.builder().jobId(UUID.randomUUID()).total(1).build();
+        service.run(job, List.of(dto("A")), List.of(0));
+
+        assertEquals(1, job.getSucceeded());
+        assertEquals("https://bucket/qrcodes/a.png", job.getResults().get(0).getImageUrl());
+        verifyNoInteractions(qrImageRenderer);
+        verify(s3Service, never()).uploadBytesAsync(any(), anyString(), anyString());
+    }
+
+    @Test
+    void run_uploadFailure_marksOnlyThatItemFailed() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(qrImageStore.key(anyString())).thenAnswer(inv -> "qrcodes/" + inv.getArgument(0) + ".png");
+        when(qrImageRenderer.renderPng(anyString())).thenReturn(new byte[]{1});
+        when(s3Service.uploadBytesAsync(any(), anyString(), anyString())).thenAnswer(inv -> {
+            String key = inv.getArgument(1);
+            return key.equals("qrcodes/B.png")
+                    ? CompletableFuture.failedFuture(new RuntimeException("S3 down"))
+                    : CompletableFuture.completedFuture("https://bucket/" + key);
+        });
+        when(repository.saveAll(anyCollection())).thenAnswer(inv -> new ArrayList<>(inv.getArgument(0)));
+
+        QrBulkJobDto job = QrBulkJobDto.builder().jobId(UUID.randomUUID()).total(2).build();
+        service.run(job, List.of(dto("A"), dto("B")), List.of(0, 1));
+
+        assertEquals(1, job.getSucceeded());
+        assertEquals(1, job.getFailed());
+        assertNotNull(job.getResults().get(1).getError());
+    }
+
+    @Test
+    void getJob_notFound() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        assertThrows(ResourceNotFoundException.class, () -> service.getJob(UUID.randomUUID()));
+    }
+
+    @Test
+    void getJob_runningJobWhoseWorkerDied_reportedFailed() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        QrBulkJobDto running = QrBulkJobDto.builder().jobId(jobId).total(5).processed(2)
+                .status(QrBulkJobStatusEnum.RUNNING.getCode()).build();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("qr_bulk_job:" + jobId)).thenReturn(new ObjectMapper().findAndRegisterModules().writeValueAsString(running));
+        when(valueOperations.get("qr_bulk_job:" + jobId + ":owner")).thenReturn("dead-pod");
+        when(redisTemplate.hasKey("qr_bulk_worker:dead-pod")).thenReturn(false);
+
+        QrBulkJobDto job = service.getJob(jobId);
+
+        assertEquals(QrBulkJobStatusEnum.FAILED.getCode(), job.getStatus());
+        assertNotNull(job.getError());
+        assertEquals(2, job.getProcessed());
+    }
+
+    @Test
+    void getJob_runningJobWithLiveWorker_unchanged() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        QrBulkJobDto running = QrBulkJobDto.builder().jobId(jobId).total(5)
+                .status(QrBulkJobStatusEnum.RUNNING.getCode()).build();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("qr_bulk_job:" + jobId)).thenReturn(new ObjectMapper().findAndRegisterModules().writeValueAsString(running));
+        when(valueOperations.get("qr_bulk_job:" + jobId + ":owner")).thenReturn("live-pod");
+        when(redisTemplate.hasKey("qr_bulk_worker:live-pod")).thenReturn(true);
+
+        assertEquals(QrBulkJobStatusEnum.RUNNING.getCode(), service.getJob(jobId).getStatus());
+    }
+
+    private static QrCodeDto dto(String code) {
+        QrCodeDto dto = new QrCodeDto();
+        dto.setName("QR " + code);
+        dto.setQrCode(code);
+        dto.setAccountId(UUID.randomUUID());
+        dto.setActivityId(UUID.randomUUID());
+        return dto;
+    }
+}
@@ -0,0 +1,113 @@
+package com.alpha_code.alpha_code_activity_service.service.impl;
+
+import com.alpha_code.alpha_code_activity_service.entity.QrCode;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageRenderer;
+import com.alpha_code.alpha_code_activity_service.repository.QrCodeRepository;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QrCodeExportServiceImplTest {
+
+    @Mock
+    QrCodeRepository repository;
+
+    @Mock
+    QrImageRenderer qrImageRenderer;
+
+    @InjectMocks
+    QrCodeExportServiceImpl service;
+
+    @Test
+    void exportZip_pagesThroughAccountAndStoresOnePngPerCode() throws Exception {
+        ReflectionTestUtils.setField(service, "pageSize", 1);
+        UUID accountId = UUID.randomUUID();
+        QrCode first = qrCode("A");
+        QrCode second = qrCode("A");
+        stubPages(accountId, first, second);
+        when(qrImageRenderer.renderPng(anyString())).thenReturn(new byte[]{1, 2, 3});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportZip(accountId, out);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                names.add(entry.getName());
+                assertArrayEquals(new byte[]{1, 2, 3}, zip.readAllBytes());
+            }
+        }
+        assertEquals(List.of("A.png", "A_2.png"), names);
+        // Trang sau bắt đầu ngay sau bản ghi cuối của trang trước (keyset), không dùng offset
+        verify(repository).findExportPage(eq(accountId), any());
+        verify(repository).findExportPageAfter(eq(accountId), eq(first.getCreatedDate()), eq(first.getId()), any());
+        verify(repository).findExportPageAfter(eq(accountId), eq(second.getCreatedDate()), eq(second.getId()), any());
+    }
+
+    @Test
+    void exportPdf_writesOnePagePerTwelveCodes() throws Exception {
+        ReflectionTestUtils.setField(service, "pageSize", 200);
+        UUID accountId = UUID.randomUUID();
+        QrCode[] codes = new QrCode[13];
+        for (int i = 0; i < codes.length; i++) codes[i] = qrCode("C" + i);
+        stubPages(accountId, codes);
+        ByteMatrix matrix = new ByteMatrix(21, 21);
+        matrix.set(0, 0, 1);
+        when(qrImageRenderer.encode(anyString())).thenReturn(matrix);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportPdf(accountId, out);
+
+        String pdf = out.toString(StandardCharsets.ISO_8859_1);
+        assertTrue(pdf.startsWith("%PDF-1.4"));
+        assertTrue(pdf.contains("/Count 2"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+    }
+
+    private void stubPages(UUID accountId, QrCode... codes) {
+        List<QrCode> all = List.of(codes);
+        when(repository.findExportPage(eq(accountId), any())).thenAnswer(inv ->
+                page(all, 0, inv.getArgument(1)));
+        lenient().when(repository.findExportPageAfter(eq(accountId), any(), any(), any())).thenAnswer(inv -> {
+            UUID afterId = inv.getArgument(2);
+            int from = 0;
+            while (!all.get(from).getId().equals(afterId)) from++;
+            return page(all, from + 1, inv.getArgument(3));
+        });
+    }
+
+    private static List<QrCode> page(List<QrCode> all, int from, Pageable pageable) {
+        return all.subList(from, Math.min(from + pageable.getPageSize(), all.size()));
+    }
+
+    private static QrCode qrCode(String code) {
+        QrCode q = new QrCode();
+        q.setId(UUID.randomUUID());
+        q.setQrCode(code);
+        q.setCreatedDate(LocalDateTime.now());
+        q.setName("Thẻ " + code);
+        return q;
+    }
+}
@@ -1,19 +1,51 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.dto.QrCodeDto;
+import com.alpha_code.alpha_code_activity_service.entity.Activity;
 import com.alpha_code.alpha_code_activity_service.entity.QrCode;
+import com.alpha_code.alpha_code_activity_service.enums.QrImageStatusEnum;
 import com.alpha_code.alpha_code_activity_service.exception.ResourceNotFoundException;
+import com.alpha_code.alpha_code_activity_service.exception.ServiceUnavailableException;
+import com.alpha_code.alpha_code_activity_service.qr.QrDecodeExecutor;
+import com.alpha_code.alpha_code_activity_service.qr.QrDecodeResultCache;
+import com.alpha_code.alpha_code_activity_service.qr.QrDecoderEngine;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageRenderer;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageStore;
+import com.alpha_code.alpha_code_activity_service.qr.QrImageUploadOutbox;
 import com.alpha_code.alpha_code_activity_service.repository.QrCodeRepository;
+import com.alpha_code.alpha_code_activity_service.service.S3Service;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,9 +54,42 @@ class QrCodeServiceImplTest {
     @Mock
     QrCodeRepository repository;
 
+    @Mock
+    QrDecoderEngine qrDecoderEngine;
+
+    @Mock
+    QrDecodeExecutor qrDecodeExecutor;
+
+    @Mock
+    QrDecodeResultCache qrDecodeResultCache;
+
+    @Mock
+    QrImageRenderer qrImageRenderer;
+
+    @Mock
+    QrImageUploadOutbox qrImageUploadOutbox;
+
+    @Mock
+    QrImageStore qrImageStore;
+
+    @Mock
+    S3Service s3Service;
+
+    @Spy
+    CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @Mock
+    CacheGenerations cacheGenerations;
+
     @InjectMocks
     QrCodeServiceImpl service;
 
+    @BeforeEach
+    void setUp() {
+        // Mock trả List rỗng cho method kiểu List, tức là "đã cache: không có QR" → mặc định coi như cache miss
+        lenient().when(qrDecodeResultCache.get(anyString())).thenReturn(null);
+    }
+
     @Test
     void getById_happyPath() {
         UUID id = UUID.randomUUID();
@@ -47,5 +112,264 @@ class QrCodeServiceImplTest {
         when(repository.findById(id)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> service.getById(id));
     }
-}
 
+    @Test
+    void getByQrImage_resolvesActivity() throws IOException {
+        QrCode q = qrCode("C");
+
+        runDecodeInline();
+        when(qrDecoderEngine.decode(any(InputStream.class))).thenReturn(List.of("C"));
+        when(repository.findActiveWithActivityByQrCode("C")).thenReturn(List.of(q));
+
+        var result = service.getByQrImage(pngFile());
+        assertEquals(q.getActivityId(), result.getId());
+    }
+
+    @Test
+    void getByQrImage_noQrFound() throws IOException {
+        runDecodeInline();
+        when(qrDecoderEngine.decode(any(InputStream.class))).thenReturn(List.of());
+        var file = pngFile();
+        assertThrows(ResourceNotFoundException.class, () -> service.getByQrImage(file));
+    }
+
+    @Test
+    void getByQrImage_cachedResult_skipsDecode() throws IOException {
+        QrCode q = qrCode("C");
+
+        when(qrDecodeResultCache.get(anyString())).thenReturn(List.of("C"));
+        when(repository.findActiveWithActivityByQrCode("C")).thenReturn(List.of(q));
+
+        assertEquals(q.getActivityId(), service.getByQrImage(pngFile()).getId());
+        verifyNoInteractions(qrDecodeExecutor, qrDecoderEngine);
+    }
+
+    @Test
+    void getByQrImage_queueFull_propagates503() throws IOException {
+        when(qrDecodeExecutor.execute(any())).thenThrow(new ServiceUnavailableException("busy", 2));
+        var file = pngFile();
+        assertThrows(ServiceUnavailableException.class, () -> service.getByQrImage(file));
+    }
+
+    @Test
+    void getByQrImageStream_decodesBodyAndCachesByContentHash() throws IOException {
+        ReflectionTestUtils.setField(service, "maxStreamBytes", 1024L * 1024);
+        QrCode q = qrCode("C");
+        byte[] bytes = pngFile().getBytes();
+
+        runDecodeInline();
+        when(qrDecoderEngine.decode(any(InputStream.class))).thenReturn(List.of("C"));
+        when(repository.findActiveWithActivityByQrCode("C")).thenReturn(List.of(q));
+
+        var result = service.getByQrImageStream(new ByteArrayInputStream(bytes), bytes.length);
+
+        assertEquals(q.getActivityId(), result.getId());
+        verify(qrDecodeResultCache).put(QrDecodeResultCache.hash(bytes), List.of("C"));
+    }
+
+    @Test
+    void getByQrImageStream_cachedHash_skipsDecodePool() throws IOException {
+        ReflectionTestUtils.setField(service, "maxStreamBytes", 1024L * 1024);
+        QrCode q = qrCode("C");
+        byte[] bytes = pngFile().getBytes();
+
+        when(qrDecodeResultCache.get(QrDecodeResultCache.hash(bytes))).thenReturn(List.of("C"));
+        when(repository.findActiveWithActivityByQrCode("C")).thenReturn(List.of(q));
+
+        var result = service.getByQrImageStream(new ByteArrayInputStream(bytes), bytes.length);
+
+        assertEquals(q.getActivityId(), result.getId());
+        verifyNoInteractions(qrDecodeExecutor);
+    }
+
+    @Test
+    void getByQrImageStream_truncatedBody_rejectedBeforeDecode() throws IOException {
+        ReflectionTestUtils.setField(service, "maxStreamBytes", 1024L * 1024);
+        byte[] bytes = pngFile().getBytes();
+
+        // Body bị cắt giữa chừng: phát hiện ngay khi đọc trên thread request, không chiếm worker decode
+        var body = new ByteArrayInputStream(bytes, 0, 16);
+        assertThrows(IllegalArgumentException.class, () -> service.getByQrImageStream(body, bytes.length));
+        verifyNoInteractions(qrDecodeExecutor);
+        verify(qrDecodeResultCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void getByQrImageStream_unreadableImage_rejectedAsInvalidImage() throws IOException {
+        ReflectionTestUtils.setField(service, "maxStreamBytes", 1024L * 1024);
+        byte[] bytes = pngFile().getBytes();
+
+        runDecodeInline();
+        when(qrDecoderEngine.decode(any(InputStream.class))).thenThrow(new IOException("Unexpected end of stream"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getByQrImageStream(new ByteArrayInputStream(bytes), bytes.length));
+        verify(qrDecodeResultCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void getByQrImageStream_rejectsMissingOrOversizedContentLength() {
+        ReflectionTestUtils.setField(service, "maxStreamBytes", 10L);
+        var body = new ByteArrayInputStream(new byte[0]);
+
+        assertThrows(IllegalArgumentException.class, () -> service.getByQrImageStream(body, -1));
+        assertThrows(IllegalArgumentException.class, () -> service.getByQrImageStream(body, 11));
+        verifyNoInteractions(qrDecodeExecutor);
+    }
+
+    @Test
+    void create_asyncMode_persistsPendingImageAndEnqueuesUpload() throws Exception {
+        byte[] png = {1, 2, 3};
+        when(repository.findQRCodeByQrCode("C")).thenReturn(Optional.empty());
+        when(qrImageStore.key("C")).thenReturn("qrcodes/c.png");
+        when(qrImageRenderer.renderPng("C")).thenReturn(png);
+        when(qrImageUploadOutbox.isEnabled()).thenReturn(true);
+        when(s3Service.getObjectUrl(anyString())).thenAnswer(inv -> "https://bucket/" + inv.getArgument(0));
+        when(repository.save(any(QrCode.class))).thenAnswer(inv -> {
+            QrCode saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+
+        var dto = service.create(newQrCodeDto("C"));
+
+        assertEquals(QrImageStatusEnum.PENDING.getCode(), dto.getImageStatus());
+        assertEquals("https://bucket/qrcodes/c.png", dto.getImageUrl());
+        verify(qrImageUploadOutbox).enqueue(eq(dto.getId()), eq("C"), eq("qrcodes/c.png"), eq(png));
+        verify(s3Service, never()).uploadBytes(any(), anyString(), anyString());
+    }
+
+    @Test
+    void create_syncMode_uploadsBeforeSaving() throws Exception {
+        when(repository.findQRCodeByQrCode("C")).thenReturn(Optional.empty());
+        when(qrImageStore.key("C")).thenReturn("qrcodes/c.png");
+        when(qrImageRenderer.renderPng("C")).thenReturn(new byte[]{1});
+        when(s3Service.uploadBytes(any(), eq("qrcodes/c.png"), eq("image/png"))).thenReturn("https://bucket/qr.png");
+        when(repository.save(any(QrCode.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var dto = service.create(newQrCodeDto("C"));
+
+        assertEquals("https://bucket/qr.png", dto.getImageUrl());
+        assertEquals(QrImageStatusEnum.READY.getCode(), dto.getImageStatus());
+        verify(qrImageStore).markStored("qrcodes/c.png");
+        verify(qrImageUploadOutbox, never()).enqueue(any(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void create_imageAlreadyStored_skipsRenderAndUpload() throws Exception {
+        when(repository.findQRCodeByQrCode("C")).thenReturn(Optional.empty());
+        when(qrImageStore.key("C")).thenReturn("qrcodes/c.png");
+        when(qrImageStore.isStored("qrcodes/c.png")).thenReturn(true);
+        when(s3Service.getObjectUrl("qrcodes/c.png")).thenReturn("https://bucket/qrcodes/c.png");
+        when(repository.save(any(QrCode.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var dto = service.create(newQrCodeDto("C"));
+
+        assertEquals("https://bucket/qrcodes/c.png", dto.getImageUrl());
+        assertEquals(QrImageStatusEnum.READY.getCode(), dto.getImageStatus());
+        verifyNoInteractions(qrImageRenderer, qrImageUploadOutbox);
+        verify(s3Service, never()).uploadBytes(any(), anyString(), anyString());
+    }
+
+    @Test
+    void getActivityByCode_singleQueryThenCached() {
+        QrCode q = qrCode("C");
+        when(repository.findActiveWithActivityByQrCode("C")).thenReturn(List.of(q));
+
+        assertEquals(q.getActivityId(), service.getActivityByCode("C").getId());
+        assertEquals(q.getActivityId(), service.getActivityByCode("C").getId());
+
+        verify(repository, times(1)).findActiveWithActivityByQrCode("C");
+    }
+
+    @Test
+    void getActivityByCode_notFound() {
+        when(repository.findActiveWithActivityByQrCode("X")).thenReturn(List.of());
+        assertThrows(ResourceNotFoundException.class, () -> service.getActivityByCode("X"));
+    }
+
+    @Test
+    void getByQrImages_resolvesAllCodesWithOneQuery() throws Exception {
+        ReflectionTestUtils.setField(service, "maxBatchImages", 20);
+        QrCode q = qrCode("A");
+
+        when(qrDecodeExecutor.submit(any())).thenAnswer(inv ->
+                CompletableFuture.completedFuture(((Callable<?>) inv.getArgument(0)).call()));
+        when(qrDecodeExecutor.await(any())).thenAnswer(inv -> ((Future<?>) inv.getArgument(0)).get());
+        when(qrDecoderEngine.decode(any(InputStream.class))).thenReturn(List.of("A"), List.of());
+        when(repository.findAllActiveWithActivityByQrCodeIn(anyCollection())).thenReturn(List.of(q));
+
+        var results = service.getByQrImages(List.of(pngFile(), pngFile()));
+
+        assertEquals(2, results.size());
+        assertEquals(q.getActivityId(), results.get(0).getActivity().getId());
+        assertNotNull(results.get(1).getError());
+        verify(repository, times(1)).findAllActiveWithActivityByQrCodeIn(anyCollection());
+    }
+
+    @Test
+    void getByQrImages_hidesInternalErrorMessages() throws Exception {
+        ReflectionTestUtils.setField(service, "maxBatchImages", 20);
+
+        when(qrDecodeExecutor.submit(any())).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(qrDecodeExecutor.await(any()))
+                .thenThrow(new IllegalStateException("detector state corrupted at 0x1f"))
+                .thenThrow(new ServiceUnavailableException("queue full: 32/32", 2));
+
+        var results = service.getByQrImages(List.of(pngFile(), pngFile()));
+
+        assertEquals("Lỗi khi decode QR code", results.get(0).getError());
+        assertEquals("Hệ thống đang bận xử lý ảnh QR, vui lòng thử lại sau", results.get(1).getError());
+    }
+
+    @Test
+    void getAllByQrImage_returnsEveryCode() throws Exception {
+        QrCode a = qrCode("A");
+        QrCode b = qrCode("B");
+
+        runDecodeInline();
+        when(qrDecoderEngine.decodeAll(any(InputStream.class))).thenReturn(List.of("A", "B"));
+        when(repository.findAllActiveWithActivityByQrCodeIn(anyCollection())).thenReturn(List.of(a, b));
+
+        var results = service.getAllByQrImage(pngFile());
+
+        assertEquals(2, results.size());
+        assertEquals(a.getActivityId(), results.get(0).getActivity().getId());
+        assertEquals(b.getActivityId(), results.get(1).getActivity().getId());
+        verify(repository, never()).findActiveWithActivityByQrCode(anyString());
+    }
+
+    private static QrCode qrCode(String code) {
+        Activity activity = new Activity();
+        activity.setId(UUID.randomUUID());
+        activity.setName("Activity " + code);
+
+        QrCode q = new QrCode();
+        q.setId(UUID.randomUUID());
+        q.setQrCode(code);
+        q.setStatus(1);
+        q.setActivityId(activity.getId());
+        q.setActivity(activity);
+        return q;
+    }
+
+    private static QrCodeDto newQrCodeDto(String code) {
+        QrCodeDto dto = new QrCodeDto();
+        dto.setName("QR " + code);
+        dto.setQrCode(code);
+        dto.setAccountId(UUID.randomUUID());
+        dto.setActivityId(UUID.randomUUID());
+        return dto;
+    }
+
+    private void runDecodeInline() {
+        when(qrDecodeExecutor.execute(any())).thenAnswer(inv -> ((Callable<?>) inv.getArgument(0)).call());
+    }
+
+    private static MockMultipartFile pngFile() throws IOException {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_BYTE_GRAY);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("image", "qr.png", "image/png", out.toByteArray());
+    }
+}
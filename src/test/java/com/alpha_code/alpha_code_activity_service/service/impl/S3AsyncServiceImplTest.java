@@ -0,0 +1,70 @@
+package com.alpha_code.alpha_code_activity_service.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3AsyncServiceImplTest {
+
+    @Mock
+    S3AsyncClient s3AsyncClient;
+
+    @Mock
+    Region region;
+
+    @InjectMocks
+    S3AsyncServiceImpl s3Service;
+
+    @Test
+    void uploadBytesAsync_completesWithUrl() {
+        ReflectionTestUtils.setField(s3Service, "bucketName", "bucket");
+        when(region.id()).thenReturn("us-west-2");
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        String url = s3Service.uploadBytesAsync(new byte[]{1, 2, 3}, "qrcodes/k.png", "image/png").join();
+
+        assertEquals("https://bucket.s3.us-west-2.amazonaws.com/qrcodes/k.png", url);
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3AsyncClient).putObject(request.capture(), any(AsyncRequestBody.class));
+        assertEquals("qrcodes/k.png", request.getValue().key());
+        assertEquals("image/png", request.getValue().contentType());
+    }
+
+    @Test
+    void getObjectUrl_withEndpointOverride_usesPathStyleUrl() {
+        ReflectionTestUtils.setField(s3Service, "bucketName", "bucket");
+        ReflectionTestUtils.setField(s3Service, "endpoint", "http://localhost:9000/");
+
+        assertEquals("http://localhost:9000/bucket/qrcodes/k.png", s3Service.getObjectUrl("qrcodes/k.png"));
+        verifyNoInteractions(region);
+    }
+
+    @Test
+    void uploadBytes_failure_rethrowsSdkException() {
+        S3Exception error = (S3Exception) S3Exception.builder().message("denied").statusCode(403).build();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.failedFuture(error));
+
+        S3Exception thrown = assertThrows(S3Exception.class,
+                () -> s3Service.uploadBytes(new byte[]{1}, "k.png", "image/png"));
+        assertEquals(403, thrown.statusCode());
+    }
+}
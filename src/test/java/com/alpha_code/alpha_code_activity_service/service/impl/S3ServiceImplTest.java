@@ -8,6 +8,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
@@ -41,5 +44,14 @@ class S3ServiceImplTest {
         assertNotNull(url);
         assertTrue(url.contains("k.jpg"));
     }
-}
 
+    @Test
+    void exists_headObject() {
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().build())
+                .thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+        assertTrue(s3Service.exists("qrcodes/a.png"));
+        assertFalse(s3Service.exists("qrcodes/a.png"));
+    }
+}
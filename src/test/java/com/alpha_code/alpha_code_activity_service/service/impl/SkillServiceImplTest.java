@@ -1,5 +1,7 @@
 package com.alpha_code.alpha_code_activity_service.service.impl;
 
+import com.alpha_code.alpha_code_activity_service.cache.CacheGenerations;
+import com.alpha_code.alpha_code_activity_service.cache.CacheIndex;
 import com.alpha_code.alpha_code_activity_service.dto.PagedResult;
 import com.alpha_code.alpha_code_activity_service.dto.SkillDto;
 import com.alpha_code.alpha_code_activity_service.entity.Skill;
@@ -11,7 +13,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -38,6 +42,13 @@ class SkillServiceImplTest {
     @Mock
     RobotServiceClient robotServiceClient;
 
+    @Mock
+    CacheGenerations cacheGenerations;
+
+    // Không cache: index đi thẳng xuống repository
+    @Spy
+    CacheIndex cacheIndex = new CacheIndex(new NoOpCacheManager());
+
     @InjectMocks
     SkillServiceImpl service;
 
@@ -399,6 +410,9 @@ class SkillServiceImplTest {
         UUID id = UUID.randomUUID();
         Skill existingSkill = new Skill();
         existingSkill.setId(id);
+        existingSkill.setName("Greeting");
+        existingSkill.setCode("GREETING");
+        existingSkill.setRobotModelId(UUID.randomUUID());
         existingSkill.setStatus(1);
 
         when(skillRepository.findById(id)).thenReturn(Optional.of(existingSkill));
@@ -410,6 +424,8 @@ class SkillServiceImplTest {
         assertTrue(result.contains("deleted successfully"));
         verify(skillRepository).findById(id);
         verify(skillRepository).save(any(Skill.class));
+        verify(cacheGenerations).bump("skills_by_model", "model", existingSkill.getRobotModelId());
+        verify(cacheIndex).evict("skills", "name", "Greeting", "code", "GREETING");
     }
 
     @Test